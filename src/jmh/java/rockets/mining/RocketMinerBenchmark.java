@@ -0,0 +1,97 @@
+package rockets.mining;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.dataset.LaunchDatasetGenerator;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every {@link RocketMiner} query against an {@link InMemoryDAO} holding a
+ * synthetic launch history from {@link LaunchDatasetGenerator}. Each query scans on
+ * its own; {@link #aggregate()} measures the one pass that
+ * {@link RocketMiner#inOnePass} shares between queries. Run with
+ * {@code mvn -P benchmark verify}; see the {@code benchmark} profile in pom.xml for
+ * the JMH options used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class RocketMinerBenchmark {
+    private static final int K = 10;
+
+    private static final int YEAR = 2000;
+
+    private static final long SEED = 5171;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int launches;
+
+    private RocketMiner miner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DAO dao = new InMemoryDAO();
+        new LaunchDatasetGenerator(SEED, launches).writeTo(dao);
+        miner = new RocketMiner(dao);
+    }
+
+    @Benchmark
+    public LaunchAggregates aggregate() {
+        return miner.aggregate();
+    }
+
+    @Benchmark
+    public List<Rocket> mostLaunchedRockets() {
+        return miner.mostLaunchedRockets(K);
+    }
+
+    @Benchmark
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders() {
+        return miner.mostReliableLaunchServiceProviders(K);
+    }
+
+    @Benchmark
+    public List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders() {
+        return miner.mostUnreliableLaunchServiceProviders(K);
+    }
+
+    @Benchmark
+    public List<Launch> mostRecentLaunches() {
+        return miner.mostRecentLaunches(K);
+    }
+
+    @Benchmark
+    public List<Launch> mostExpensiveLaunches() {
+        return miner.mostExpensiveLaunches(K);
+    }
+
+    @Benchmark
+    public String dominantCountry() {
+        return miner.dominantCountry("LEO");
+    }
+
+    @Benchmark
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders() {
+        return miner.highestRevenueLaunchServiceProviders(K, YEAR);
+    }
+}
@@ -1,15 +1,90 @@
 package rockets.dataaccess;
 
+import rockets.dataaccess.index.LaunchDateIndex;
 import rockets.model.Entity;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface DAO {
     <T extends Entity> T load(Class<T> clazz, Long id);
 
+    /**
+     * Loads the entity with the related entities up to the given number of hops away;
+     * at depth 0 relationships are left unset. By default the depth is ignored.
+     */
+    default <T extends Entity> T load(Class<T> clazz, Long id, int depth) {
+        return load(clazz, id);
+    }
+
     <T extends Entity> T createOrUpdate(T entity);
 
+    /**
+     * Creates or updates every entity of the collection, returning them in order with
+     * their ids set. Implementations may batch the lookups and writes; by default each
+     * entity goes through {@link #createOrUpdate(Entity)}.
+     */
+    default <T extends Entity> List<T> createOrUpdateAll(Collection<T> entities) {
+        List<T> saved = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            saved.add(createOrUpdate(entity));
+        }
+        return saved;
+    }
+
+    /**
+     * Returns the stored entity that saving this one would update: the one with the
+     * same natural key in stores identifying entities by one. By default, the first
+     * streamed entity equal to it.
+     */
+    @SuppressWarnings("unchecked")
+    default <T extends Entity> Optional<T> findExisting(T entity) {
+        try (Stream<? extends Entity> entities = stream(entity.getClass())) {
+            return entities.filter(entity::equals).findFirst().map(existing -> (T) existing);
+        }
+    }
+
     <T extends Entity> Collection<T> loadAll(Class<T> clazz);
 
+    default <T extends Entity> Collection<T> loadAll(Class<T> clazz, int depth) {
+        return loadAll(clazz);
+    }
+
     <T extends Entity> void delete(T entity);
+
+    /**
+     * Streams every entity of the class. Unlike {@link #loadAll(Class)}, implementations
+     * may fetch entities page by page so that scans run in constant memory; the stream
+     * should be closed once consumed.
+     */
+    default <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return loadAll(clazz).stream();
+    }
+
+    /**
+     * Streams a read-only view of every entity of the projection's class holding only
+     * the projected values, for scans that need a few fields. Implementations may read
+     * just those values from their store; by default entities are streamed and their
+     * fields copied.
+     */
+    default Stream<EntityView> project(Projection projection) {
+        return stream(projection.getEntityClass()).map(projection::viewOf);
+    }
+
+    /**
+     * Returns the launch queries this DAO can run inside its store, if any.
+     */
+    default Optional<LaunchQueries> launchQueries() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the index of launches by date this DAO keeps current, if any.
+     */
+    default Optional<LaunchDateIndex> launchDateIndex() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,57 @@
+package rockets.dataaccess;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The values a {@link Projection} read from one entity, by path. A relationship path
+ * holds the id of the related entity, and a path through a missing relationship holds
+ * null. Collections are read as sets. Read-only.
+ */
+public final class EntityView {
+    private final Long id;
+
+    private final Map<String, Object> values;
+
+    EntityView(Long id, Map<String, Object> values) {
+        this.id = id;
+        Map<String, Object> copy = new LinkedHashMap<>(values.size());
+        values.forEach((path, value) -> copy.put(path, value instanceof Collection
+                ? Collections.unmodifiableSet(new LinkedHashSet<>((Collection<?>) value)) : value));
+        this.values = Collections.unmodifiableMap(copy);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the value of a projected path.
+     *
+     * @throws IllegalArgumentException if the path was not projected
+     */
+    public Object get(String path) {
+        isTrue(values.containsKey(path), "%s is not projected", path);
+        return values.get(path);
+    }
+
+    public <V> V get(String path, Class<V> type) {
+        notNull(type, "type cannot be null");
+        return type.cast(get(path));
+    }
+
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityView{id=" + id + ", " + values + "}";
+    }
+}
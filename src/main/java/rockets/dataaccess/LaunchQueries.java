@@ -0,0 +1,36 @@
+package rockets.dataaccess;
+
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The questions {@link rockets.mining.RocketMiner} asks about launches, for stores
+ * that can answer them where the data lives and return only the top-k rows.
+ */
+public interface LaunchQueries {
+    List<Rocket> mostLaunchedRockets(int k);
+
+    List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k);
+
+    List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k);
+
+    List<Launch> mostRecentLaunches(int k);
+
+    List<Launch> mostExpensiveLaunches(int k);
+
+    String dominantCountry(String orbit);
+
+    List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year);
+
+    /**
+     * Returns the k providers with the highest revenue over the years, both included,
+     * if these queries keep revenue pre-aggregated by year; by default they do not.
+     */
+    default Optional<List<LaunchServiceProvider>> highestRevenueOverYears(int k, int firstYear, int lastYear) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,212 @@
+package rockets.dataaccess;
+
+import org.neo4j.ogm.annotation.Property;
+import rockets.model.Entity;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notEmpty;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The fields of an entity class a scan needs, for {@link DAO#project(Projection)}.
+ * A path is a property of the class, e.g. {@code launchDate}, a relationship to a
+ * single entity, which projects that entity's id, e.g. {@code launchServiceProvider},
+ * or a dotted path through such relationships to a property of a related entity, e.g.
+ * {@code launchVehicle.manufacturer.country}. Relationships to collections of entities
+ * cannot be projected.
+ * <p>
+ * Paths are checked against the entity class when the projection is created.
+ */
+public final class Projection {
+    private final Class<? extends Entity> entityClass;
+
+    private final List<String> paths;
+
+    private final Map<String, List<Field>> fields = new LinkedHashMap<>();
+
+    private Projection(Class<? extends Entity> entityClass, List<String> paths) {
+        this.entityClass = entityClass;
+        this.paths = Collections.unmodifiableList(paths);
+        for (String path : paths) {
+            fields.put(path, resolve(entityClass, path));
+        }
+    }
+
+    public static Projection of(Class<? extends Entity> entityClass, String... paths) {
+        notNull(entityClass, "entityClass cannot be null");
+        notEmpty(paths, "paths cannot be empty");
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(paths)));
+        return new Projection(entityClass, distinct);
+    }
+
+    public Class<? extends Entity> getEntityClass() {
+        return entityClass;
+    }
+
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Returns the fields the path goes through, the last one holding the value.
+     */
+    public List<Field> fieldsOf(String path) {
+        List<Field> resolved = fields.get(path);
+        isTrue(null != resolved, "%s is not projected", path);
+        return resolved;
+    }
+
+    /**
+     * Returns the graph property or relationship type the OGM maps the field to.
+     */
+    public static String graphNameOf(Field field) {
+        if (isRelationship(field)) {
+            return field.getName().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+        }
+        Property property = field.getAnnotation(Property.class);
+        return null == property || property.name().isEmpty() ? field.getName() : property.name();
+    }
+
+    public static boolean isRelationship(Field field) {
+        return Entity.class.isAssignableFrom(field.getType());
+    }
+
+    /**
+     * Projects an entity already in memory, for DAOs without a cheaper way to read
+     * only some fields.
+     */
+    public EntityView viewOf(Entity entity) {
+        notNull(entity, "entity cannot be null");
+        isTrue(entityClass.isInstance(entity), "%s is not a %s", entity, entityClass.getSimpleName());
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Field>> path : fields.entrySet()) {
+            Object value = entity;
+            for (Field field : path.getValue()) {
+                value = null == value ? null : read(field, value);
+            }
+            values.put(path.getKey(), value instanceof Entity ? ((Entity) value).getId() : value);
+        }
+        return new EntityView(entity.getId(), values);
+    }
+
+    /**
+     * Creates the view of an entity from the values a store read for each path, where
+     * dates, decimals and enums may be stored as strings and relationships as ids.
+     */
+    public EntityView viewOf(Long id, Map<String, Object> storedValues) {
+        notNull(storedValues, "storedValues cannot be null");
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Field>> path : fields.entrySet()) {
+            List<Field> pathFields = path.getValue();
+            values.put(path.getKey(), convert(pathFields.get(pathFields.size() - 1), storedValues.get(path.getKey())));
+        }
+        return new EntityView(id, values);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Field field, Object value) {
+        if (null == value) {
+            return null;
+        }
+        Class<?> type = field.getType();
+        if (isRelationship(field)) {
+            return ((Number) value).longValue();
+        } else if (type == LocalDate.class) {
+            return value instanceof LocalDate ? value : LocalDate.parse(value.toString());
+        } else if (type == BigDecimal.class) {
+            return value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+        } else if (type.isEnum()) {
+            return value instanceof Enum ? value : Enum.valueOf((Class<Enum>) type, value.toString());
+        } else if (type == int.class || type == Integer.class) {
+            return ((Number) value).intValue();
+        } else if (type == long.class || type == Long.class) {
+            return ((Number) value).longValue();
+        } else if (Collection.class.isAssignableFrom(type) && value.getClass().isArray()) {
+            return Arrays.asList((Object[]) value);
+        }
+        return value;
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Field> resolve(Class<?> entityClass, String path) {
+        notNull(path, "path cannot be null");
+        String[] names = path.split("\\.", -1);
+        List<Field> resolved = new ArrayList<>(names.length);
+        Class<?> owner = entityClass;
+        for (int i = 0; i < names.length; i++) {
+            Field field = fieldOf(owner, names[i]);
+            isTrue(null != field, "%s has no field %s in path %s", owner.getSimpleName(), names[i], path);
+            isTrue(!Collection.class.isAssignableFrom(field.getType()) || i == names.length - 1 && !isRelationshipCollection(field),
+                    "cannot project through collection %s in path %s", names[i], path);
+            isTrue(i == names.length - 1 || isRelationship(field),
+                    "%s is not a relationship in path %s", names[i], path);
+            field.setAccessible(true);
+            resolved.add(field);
+            owner = field.getType();
+        }
+        return resolved;
+    }
+
+    private static boolean isRelationshipCollection(Field field) {
+        Type type = field.getGenericType();
+        if (type instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                if (argument instanceof Class && Entity.class.isAssignableFrom((Class<?>) argument)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Field fieldOf(Class<?> clazz, String name) {
+        for (Class<?> c = clazz; null != c && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Projection that = (Projection) o;
+        return entityClass.equals(that.entityClass) && paths.equals(that.paths);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entityClass, paths);
+    }
+
+    @Override
+    public String toString() {
+        return entityClass.getSimpleName() + paths;
+    }
+}
@@ -0,0 +1,218 @@
+package rockets.dataaccess.async;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import rockets.dataaccess.DAO;
+import rockets.model.Entity;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Runs the calls of a {@link DAO} on an executor, returning futures, so that
+ * independent lookups overlap instead of adding up:
+ * <pre>
+ * CompletableFuture&lt;Rocket&gt; rocket = async.load(Rocket.class, rocketId);
+ * CompletableFuture&lt;LaunchServiceProvider&gt; provider = async.load(LaunchServiceProvider.class, providerId);
+ * rocket.thenCombine(provider, (r, p) -&gt; ...);
+ * </pre>
+ * The delegate must be safe to call from several threads at once, such as a
+ * {@link rockets.dataaccess.neo4j.Neo4jDAO} created over a session factory.
+ * <p>
+ * Each call fails with a {@link TimeoutException} if it has not completed within the
+ * {@link #setTimeout(long, TimeUnit) timeout}, and fails with a
+ * {@link RejectedExecutionException} if the executor is saturated. Cancelling a future,
+ * or its timing out, cancels the call: it is dropped if still queued and its thread is
+ * interrupted if running.
+ */
+public class AsyncDAO implements Closeable {
+    public static final int DEFAULT_PARALLELISM = 16;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final DAO delegate;
+
+    private final ExecutorService executor;
+
+    private final boolean ownsExecutor;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("async-dao-timer-%d").setDaemon(true).build());
+
+    private volatile long timeoutNanos;
+
+    /**
+     * Runs the calls on a {@link #newExecutor(int, int) bounded executor} of
+     * {@link #DEFAULT_PARALLELISM} threads, shut down on {@link #close()}.
+     */
+    public AsyncDAO(DAO delegate) {
+        this(delegate, newExecutor(DEFAULT_PARALLELISM, DEFAULT_QUEUE_CAPACITY), true);
+    }
+
+    /**
+     * Runs the calls on the given executor, which the caller keeps ownership of.
+     */
+    public AsyncDAO(DAO delegate, ExecutorService executor) {
+        this(delegate, executor, false);
+    }
+
+    private AsyncDAO(DAO delegate, ExecutorService executor, boolean ownsExecutor) {
+        notNull(delegate, "delegate cannot be null");
+        notNull(executor, "executor cannot be null");
+        this.delegate = delegate;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Creates an executor running at most {@code parallelism} calls at once and queueing
+     * at most {@code queueCapacity} more, rejecting the rest. Its threads are virtual
+     * threads where the JDK offers them, and daemon platform threads otherwise.
+     */
+    public static ExecutorService newExecutor(int parallelism, int queueCapacity) {
+        isTrue(parallelism > 0, "parallelism must be positive");
+        isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ThreadFactory threadFactory() {
+        ThreadFactory virtual = virtualThreadFactory();
+        if (null != virtual) {
+            return new ThreadFactoryBuilder().setThreadFactory(virtual).setNameFormat("async-dao-%d").build();
+        }
+        return new ThreadFactoryBuilder().setNameFormat("async-dao-%d").setDaemon(true).build();
+    }
+
+    /**
+     * Returns {@code Thread.ofVirtual().factory()} on JDKs that have it, or null.
+     */
+    static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets how long each call may take before its future fails; 0, the default, lets
+     * calls run until they complete.
+     */
+    public void setTimeout(long timeout, TimeUnit unit) {
+        isTrue(timeout >= 0, "timeout cannot be negative");
+        notNull(unit, "unit cannot be null");
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public DAO getDelegate() {
+        return delegate;
+    }
+
+    public <T extends Entity> CompletableFuture<T> load(Class<T> clazz, Long id) {
+        return submit(() -> delegate.load(clazz, id));
+    }
+
+    public <T extends Entity> CompletableFuture<T> load(Class<T> clazz, Long id, int depth) {
+        return submit(() -> delegate.load(clazz, id, depth));
+    }
+
+    public <T extends Entity> CompletableFuture<T> createOrUpdate(T entity) {
+        return submit(() -> delegate.createOrUpdate(entity));
+    }
+
+    public <T extends Entity> CompletableFuture<List<T>> createOrUpdateAll(Collection<T> entities) {
+        return submit(() -> delegate.createOrUpdateAll(entities));
+    }
+
+    public <T extends Entity> CompletableFuture<Collection<T>> loadAll(Class<T> clazz) {
+        return submit(() -> delegate.loadAll(clazz));
+    }
+
+    public <T extends Entity> CompletableFuture<Void> delete(T entity) {
+        return submit(() -> {
+            delegate.delete(entity);
+            return null;
+        });
+    }
+
+    /**
+     * Runs any other call on the delegate, such as a launch query, asynchronously.
+     */
+    public <R> CompletableFuture<R> call(Function<? super DAO, ? extends R> call) {
+        notNull(call, "call cannot be null");
+        return submit(() -> call.apply(delegate));
+    }
+
+    private <R> CompletableFuture<R> submit(Supplier<? extends R> call) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(call.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        long timeout = timeoutNanos;
+        ScheduledFuture<?> expiry = null;
+        if (timeout > 0) {
+            try {
+                expiry = timer.schedule(() -> result.completeExceptionally(new TimeoutException(
+                        "DAO call timed out after " + TimeUnit.NANOSECONDS.toMillis(timeout) + " ms")),
+                        timeout, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+        ScheduledFuture<?> scheduled = expiry;
+        result.whenComplete((value, failure) -> {
+            if (null != scheduled) {
+                scheduled.cancel(false);
+            }
+            if (null != failure && !task.isDone()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stops the timeout timer and, if this DAO created its executor, shuts the executor
+     * down, letting calls already submitted finish.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package rockets.dataaccess.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityView;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.Projection;
+import rockets.dataaccess.index.LaunchDateIndex;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.Rocket;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A {@link DAO} decorator caching {@link #load(Class, Long)} results per entity class.
+ * Each class has its own cache, bounded by size or by weight and with an optional time
+ * to live, evicting the least recently used entities first.
+ * <p>
+ * Saving or deleting an entity through the decorator invalidates it, along with the
+ * rockets and providers a saved launch or rocket refers to, since the delegate may
+ * cascade the save to them. A load racing with such a write does not put back what it
+ * read before the write, as each invalidation bumps a generation of the entity's
+ * stripe that the load checks after caching. Writes made to the delegate directly are
+ * not seen. Bulk reads, streams and launch queries go straight to the delegate.
+ * <p>
+ * Cache settings of a class take effect from its next load; changing them drops the
+ * entities cached so far for that class.
+ */
+public class CachingDAO implements DAO {
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final DAO delegate;
+
+    private final Map<Class<?>, CacheSettings> settings = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Cache<Long, Entity>> caches = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public CachingDAO(DAO delegate) {
+        notNull(delegate, "delegate cannot be null");
+        this.delegate = delegate;
+    }
+
+    public void setMaximumSize(Class<? extends Entity> clazz, long maximumSize) {
+        isTrue(maximumSize >= 0, "maximumSize cannot be negative");
+        update(clazz, new CacheSettings(maximumSize, -1, null, settingsOf(clazz).ttlNanos));
+    }
+
+    /**
+     * Bounds the cache of the class by the total weight of its entities instead of
+     * their number.
+     */
+    public <T extends Entity> void setMaximumWeight(Class<T> clazz, long maximumWeight, ToIntFunction<? super T> weigher) {
+        isTrue(maximumWeight >= 0, "maximumWeight cannot be negative");
+        notNull(weigher, "weigher cannot be null");
+        ToIntFunction<Entity> entityWeigher = entity -> weigher.applyAsInt(clazz.cast(entity));
+        update(clazz, new CacheSettings(-1, maximumWeight, entityWeigher, settingsOf(clazz).ttlNanos));
+    }
+
+    /**
+     * Expires entities of the class the given time after they were loaded; 0 keeps them
+     * until evicted or invalidated.
+     */
+    public void setTimeToLive(Class<? extends Entity> clazz, long duration, TimeUnit unit) {
+        isTrue(duration >= 0, "duration cannot be negative");
+        notNull(unit, "unit cannot be null");
+        CacheSettings current = settingsOf(clazz);
+        update(clazz, new CacheSettings(current.maximumSize, current.maximumWeight, current.weigher, unit.toNanos(duration)));
+    }
+
+    /**
+     * Returns the hits, misses and evictions of the cache of the class.
+     */
+    public CacheStats stats(Class<? extends Entity> clazz) {
+        Cache<Long, Entity> cache = caches.get(clazz);
+        return null == cache ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    /**
+     * Returns the hits, misses and evictions of all caches together.
+     */
+    public CacheStats stats() {
+        CacheStats total = new CacheStats(0, 0, 0, 0, 0, 0);
+        for (Cache<Long, Entity> cache : caches.values()) {
+            total = total.plus(cache.stats());
+        }
+        return total;
+    }
+
+    public void invalidateAll() {
+        caches.values().forEach(Cache::invalidateAll);
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        Cache<Long, Entity> cache = cacheOf(clazz);
+        Entity cached = cache.getIfPresent(id);
+        if (null != cached) {
+            return clazz.cast(cached);
+        }
+        int stripe = stripeOf(clazz, id);
+        long generation = generations.get(stripe);
+        T loaded = delegate.load(clazz, id);
+        if (null != loaded) {
+            cache.put(id, loaded);
+            if (generations.get(stripe) != generation) {
+                // saved or deleted while loading, so what was loaded may be stale
+                cache.asMap().remove(id, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Loads at the given depth from the delegate, bypassing the cache, which holds
+     * entities at the delegate's default depth.
+     */
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, int depth) {
+        return delegate.load(clazz, id, depth);
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        T saved = delegate.createOrUpdate(entity);
+        invalidate(entity);
+        invalidate(saved);
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> List<T> createOrUpdateAll(Collection<T> entities) {
+        List<T> saved = delegate.createOrUpdateAll(entities);
+        saved.forEach(this::invalidate);
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> Optional<T> findExisting(T entity) {
+        return delegate.findExisting(entity);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        return delegate.loadAll(clazz);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, int depth) {
+        return delegate.loadAll(clazz, depth);
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return delegate.stream(clazz);
+    }
+
+    @Override
+    public Stream<EntityView> project(Projection projection) {
+        return delegate.project(projection);
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        delegate.delete(entity);
+        invalidate(entity);
+    }
+
+    @Override
+    public Optional<LaunchQueries> launchQueries() {
+        return delegate.launchQueries();
+    }
+
+    @Override
+    public Optional<LaunchDateIndex> launchDateIndex() {
+        return delegate.launchDateIndex();
+    }
+
+    private void invalidate(Entity entity) {
+        if (null == entity) {
+            return;
+        }
+        if (null != entity.getId()) {
+            generations.incrementAndGet(stripeOf(entity.getClass(), entity.getId()));
+            Cache<Long, Entity> cache = caches.get(entity.getClass());
+            if (null != cache) {
+                cache.invalidate(entity.getId());
+            }
+        }
+        if (entity instanceof Launch) {
+            invalidate(((Launch) entity).getLaunchVehicle());
+            invalidate(((Launch) entity).getLaunchServiceProvider());
+        } else if (entity instanceof Rocket) {
+            invalidate(((Rocket) entity).getManufacturer());
+        }
+    }
+
+    private static int stripeOf(Class<?> clazz, Long id) {
+        int hash = 31 * clazz.hashCode() + id.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private CacheSettings settingsOf(Class<?> clazz) {
+        return settings.getOrDefault(clazz, CacheSettings.DEFAULT);
+    }
+
+    private void update(Class<?> clazz, CacheSettings cacheSettings) {
+        notNull(clazz, "clazz cannot be null");
+        settings.put(clazz, cacheSettings);
+        caches.remove(clazz);
+    }
+
+    private Cache<Long, Entity> cacheOf(Class<?> clazz) {
+        return caches.computeIfAbsent(clazz, c -> settingsOf(c).build());
+    }
+
+    private static final class CacheSettings {
+        private static final CacheSettings DEFAULT = new CacheSettings(DEFAULT_MAXIMUM_SIZE, -1, null, 0);
+
+        private final long maximumSize;
+
+        private final long maximumWeight;
+
+        private final ToIntFunction<Entity> weigher;
+
+        private final long ttlNanos;
+
+        private CacheSettings(long maximumSize, long maximumWeight, ToIntFunction<Entity> weigher, long ttlNanos) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+            this.weigher = weigher;
+            this.ttlNanos = ttlNanos;
+        }
+
+        private Cache<Long, Entity> build() {
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+            if (null != weigher) {
+                builder.maximumWeight(maximumWeight).weigher((Long id, Entity entity) -> weigher.applyAsInt(entity));
+            } else {
+                builder.maximumSize(maximumSize);
+            }
+            if (ttlNanos > 0) {
+                builder.expireAfterWrite(ttlNanos, TimeUnit.NANOSECONDS);
+            }
+            return builder.build();
+        }
+    }
+}
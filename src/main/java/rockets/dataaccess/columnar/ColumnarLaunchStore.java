@@ -0,0 +1,316 @@
+package rockets.dataaccess.columnar;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.LaunchQueries;
+import rockets.model.Dictionaries;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.StringDictionary;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A read-only snapshot of the launches of a {@link DAO}, kept column by column in
+ * primitive arrays: epoch day, rocket and provider ordinals, price in cents, outcome,
+ * and the {@link Dictionaries} codes of orbit and site. Queries scan the arrays without allocating
+ * per launch; only the k answers are loaded back from the DAO by id.
+ * <p>
+ * Rockets and providers are numbered in the order they first appear, and ties rank
+ * in that order, or in launch order for launches. Missing values are stored as
+ * {@link #NONE}, or {@link Long#MIN_VALUE} for prices. The snapshot does not see
+ * later writes to the DAO. Queries only read the columns, so a store can be shared
+ * between threads. {@link LaunchSnapshot} saves a store to disk and maps it back.
+ */
+public class ColumnarLaunchStore implements LaunchQueries {
+    public static final int NONE = StringDictionary.NONE;
+
+    static final long NO_PRICE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final DAO dao;
+
+    final int size;
+
+    final long[] ids;
+
+    final int[] epochDays;
+
+    final int[] rocketOrdinals;
+
+    final int[] providerOrdinals;
+
+    final long[] priceCents;
+
+    final byte[] outcomes;
+
+    final int[] orbitCodes;
+
+    final int[] siteCodes;
+
+    final Rocket[] rockets;
+
+    final LaunchServiceProvider[] providers;
+
+    /**
+     * The dictionary code of the country of each rocket's manufacturer, by rocket ordinal.
+     */
+    private final int[] manufacturerCountryCodes;
+
+    ColumnarLaunchStore(DAO dao, int size, long[] ids, int[] epochDays, int[] rocketOrdinals, int[] providerOrdinals,
+                        long[] priceCents, byte[] outcomes, int[] orbitCodes, int[] siteCodes,
+                        Rocket[] rockets, LaunchServiceProvider[] providers) {
+        this.dao = dao;
+        this.size = size;
+        this.ids = ids;
+        this.epochDays = epochDays;
+        this.rocketOrdinals = rocketOrdinals;
+        this.providerOrdinals = providerOrdinals;
+        this.priceCents = priceCents;
+        this.outcomes = outcomes;
+        this.orbitCodes = orbitCodes;
+        this.siteCodes = siteCodes;
+        this.rockets = rockets;
+        this.providers = providers;
+        this.manufacturerCountryCodes = new int[rockets.length];
+        for (int i = 0; i < rockets.length; i++) {
+            LaunchServiceProvider manufacturer = rockets[i].getManufacturer();
+            manufacturerCountryCodes[i] = null == manufacturer ? NONE : Dictionaries.COUNTRIES.encode(manufacturer.getCountry());
+        }
+    }
+
+    /**
+     * Streams every launch of the DAO into a new store. Launches must have been saved.
+     */
+    public static ColumnarLaunchStore snapshot(DAO dao) {
+        notNull(dao, "dao cannot be null");
+        Builder builder = new Builder();
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            launches.forEach(builder::add);
+        }
+        return builder.build(dao);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the dictionary code of the site the launch at the row left from.
+     */
+    public int launchSiteCode(int row) {
+        return siteCodes[row];
+    }
+
+    @Override
+    public List<Rocket> mostLaunchedRockets(int k) {
+        limit(k);
+        long[] counts = new long[rockets.length];
+        for (int i = 0; i < size; i++) {
+            int rocket = rocketOrdinals[i];
+            if (rocket != NONE) {
+                counts[rocket]++;
+            }
+        }
+        return pick(rockets, topGroups(counts, k));
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        return providersByOutcomeRatio(Launch.LaunchOutcome.SUCCESSFUL, k);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k) {
+        return providersByOutcomeRatio(Launch.LaunchOutcome.FAILED, k);
+    }
+
+    private List<LaunchServiceProvider> providersByOutcomeRatio(Launch.LaunchOutcome outcome, int k) {
+        limit(k);
+        byte code = (byte) outcome.ordinal();
+        int[] matching = new int[providers.length];
+        int[] totals = new int[providers.length];
+        for (int i = 0; i < size; i++) {
+            int provider = providerOrdinals[i];
+            if (provider != NONE) {
+                totals[provider]++;
+                if (outcomes[i] == code) {
+                    matching[provider]++;
+                }
+            }
+        }
+        double[] ratios = new double[providers.length];
+        for (int p = 0; p < providers.length; p++) {
+            ratios[p] = matching[p] > 0 ? (double) matching[p] / totals[p] : Double.NaN;
+        }
+        int[] top = IndexSelection.top(providers.length, k,
+                (a, b) -> Double.compare(ratios[b], ratios[a]), p -> !Double.isNaN(ratios[p]));
+        return pick(providers, top);
+    }
+
+    @Override
+    public List<Launch> mostRecentLaunches(int k) {
+        limit(k);
+        int[] top = IndexSelection.top(size, k, (a, b) -> Integer.compare(epochDays[b], epochDays[a]),
+                i -> epochDays[i] != Integer.MIN_VALUE);
+        return load(top, k);
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k) {
+        limit(k);
+        int[] top = IndexSelection.top(size, k, (a, b) -> Long.compare(priceCents[b], priceCents[a]),
+                i -> priceCents[i] != NO_PRICE);
+        return load(top, k);
+    }
+
+    /**
+     * Returns the country whose rockets were launched most often into the orbit, ties
+     * going to the country launching there first, or an empty string when nothing was
+     * launched into it.
+     */
+    @Override
+    public String dominantCountry(String orbit) {
+        int orbitCode = Dictionaries.ORBITS.codeOf(orbit);
+        if (orbitCode == NONE) {
+            return "";
+        }
+        int countries = Dictionaries.COUNTRIES.size();
+        long[] launches = new long[countries];
+        int[] first = new int[countries];
+        Arrays.fill(first, Integer.MAX_VALUE);
+        for (int i = 0; i < size; i++) {
+            int rocket = rocketOrdinals[i];
+            if (orbitCodes[i] == orbitCode && rocket != NONE && manufacturerCountryCodes[rocket] != NONE) {
+                int country = manufacturerCountryCodes[rocket];
+                launches[country]++;
+                first[country] = Math.min(first[country], i);
+            }
+        }
+        int[] top = IndexSelection.top(launches.length, 1,
+                (a, b) -> launches[a] != launches[b] ? Long.compare(launches[b], launches[a]) : Integer.compare(first[a], first[b]),
+                c -> launches[c] > 0);
+        return top.length == 0 ? "" : Dictionaries.COUNTRIES.decode(top[0]);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        limit(k);
+        int from = (int) LocalDate.of(year, 1, 1).toEpochDay();
+        int to = (int) LocalDate.of(year + 1, 1, 1).toEpochDay();
+        long[] revenue = new long[providers.length];
+        boolean[] priced = new boolean[providers.length];
+        for (int i = 0; i < size; i++) {
+            int provider = providerOrdinals[i];
+            int day = epochDays[i];
+            if (provider != NONE && day >= from && day < to && priceCents[i] != NO_PRICE) {
+                revenue[provider] += priceCents[i];
+                priced[provider] = true;
+            }
+        }
+        int[] top = IndexSelection.top(providers.length, k, (a, b) -> Long.compare(revenue[b], revenue[a]), p -> priced[p]);
+        return pick(providers, top);
+    }
+
+    private static int[] topGroups(long[] counts, int k) {
+        return IndexSelection.top(counts.length, k, (a, b) -> Long.compare(counts[b], counts[a]), g -> counts[g] > 0);
+    }
+
+    private static <T> List<T> pick(T[] values, int[] indices) {
+        List<T> picked = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            picked.add(values[index]);
+        }
+        return picked;
+    }
+
+    private List<Launch> load(int[] indices, int k) {
+        List<Launch> launches = new ArrayList<>(Math.min(k, indices.length));
+        for (int index : indices) {
+            launches.add(dao.load(Launch.class, ids[index]));
+        }
+        return launches;
+    }
+
+    private static void limit(int k) {
+        isTrue(k >= 0, "k cannot be negative: %d", k);
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static final class Builder {
+        private int size;
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private int[] epochDays = new int[INITIAL_CAPACITY];
+        private int[] rocketOrdinals = new int[INITIAL_CAPACITY];
+        private int[] providerOrdinals = new int[INITIAL_CAPACITY];
+        private long[] priceCents = new long[INITIAL_CAPACITY];
+        private byte[] outcomes = new byte[INITIAL_CAPACITY];
+        private int[] orbitCodes = new int[INITIAL_CAPACITY];
+        private int[] siteCodes = new int[INITIAL_CAPACITY];
+        private final List<Rocket> rockets = new ArrayList<>();
+        private final Map<Rocket, Integer> rocketOrdinalsByRocket = new HashMap<>();
+        private final List<LaunchServiceProvider> providers = new ArrayList<>();
+        private final Map<LaunchServiceProvider, Integer> providerOrdinalsByProvider = new HashMap<>();
+
+        private void add(Launch launch) {
+            notNull(launch.getId(), "launches must have been saved");
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = launch.getId();
+            epochDays[size] = null == launch.getLaunchDate() ? Integer.MIN_VALUE : (int) launch.getLaunchDate().toEpochDay();
+            rocketOrdinals[size] = ordinal(launch.getLaunchVehicle(), rockets, rocketOrdinalsByRocket);
+            providerOrdinals[size] = ordinal(launch.getLaunchServiceProvider(), providers, providerOrdinalsByProvider);
+            priceCents[size] = null == launch.getPrice() ? NO_PRICE : toCents(launch.getPrice());
+            outcomes[size] = null == launch.getLaunchOutcome() ? NONE : (byte) launch.getLaunchOutcome().ordinal();
+            orbitCodes[size] = Dictionaries.ORBITS.encode(launch.getOrbit());
+            siteCodes[size] = Dictionaries.LAUNCH_SITES.encode(launch.getLaunchSite());
+            size++;
+        }
+
+        private ColumnarLaunchStore build(DAO dao) {
+            return new ColumnarLaunchStore(dao, size, Arrays.copyOf(ids, size), Arrays.copyOf(epochDays, size),
+                    Arrays.copyOf(rocketOrdinals, size), Arrays.copyOf(providerOrdinals, size),
+                    Arrays.copyOf(priceCents, size), Arrays.copyOf(outcomes, size), Arrays.copyOf(orbitCodes, size),
+                    Arrays.copyOf(siteCodes, size), rockets.toArray(new Rocket[0]),
+                    providers.toArray(new LaunchServiceProvider[0]));
+        }
+
+        private static <T> int ordinal(T value, List<T> values, Map<T, Integer> ordinals) {
+            if (null == value) {
+                return NONE;
+            }
+            return ordinals.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            rocketOrdinals = Arrays.copyOf(rocketOrdinals, capacity);
+            providerOrdinals = Arrays.copyOf(providerOrdinals, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            outcomes = Arrays.copyOf(outcomes, capacity);
+            orbitCodes = Arrays.copyOf(orbitCodes, capacity);
+            siteCodes = Arrays.copyOf(siteCodes, capacity);
+        }
+    }
+}
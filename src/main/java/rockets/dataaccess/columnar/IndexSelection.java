@@ -0,0 +1,87 @@
+package rockets.dataaccess.columnar;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Selects the best k of the indices 0..n-1 with a bounded heap of ints, so column
+ * scans need not box their rows. Ties go to the lower index.
+ */
+final class IndexSelection {
+    interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    private IndexSelection() {
+    }
+
+    /**
+     * Returns, best first, the k best indices accepted by the filter.
+     */
+    static int[] top(int n, int k, IndexComparator order, IntPredicate filter) {
+        int[] heap = new int[Math.min(n, k)];
+        int count = 0;
+        for (int i = 0; i < n && heap.length > 0; i++) {
+            if (!filter.test(i)) {
+                continue;
+            }
+            if (count < heap.length) {
+                heap[count] = i;
+                siftUp(heap, count++, order);
+            } else if (worse(heap[0], i, order)) {
+                heap[0] = i;
+                siftDown(heap, count, order);
+            }
+        }
+        int[] best = new int[count];
+        for (int size = count; size > 0; size--) {
+            best[size - 1] = heap[0];
+            heap[0] = heap[size - 1];
+            siftDown(heap, size - 1, order);
+        }
+        return best;
+    }
+
+    /**
+     * Whether a ranks after b.
+     */
+    private static boolean worse(int a, int b, IndexComparator order) {
+        int compared = order.compare(a, b);
+        return compared > 0 || (compared == 0 && a > b);
+    }
+
+    private static void siftUp(int[] heap, int position, IndexComparator order) {
+        int index = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!worse(index, heap[parent], order)) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = index;
+    }
+
+    private static void siftDown(int[] heap, int size, IndexComparator order) {
+        if (size == 0) {
+            return;
+        }
+        int position = 0;
+        int index = heap[0];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && worse(heap[child + 1], heap[child], order)) {
+                child++;
+            }
+            if (!worse(heap[child], index, order)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = index;
+    }
+}
@@ -0,0 +1,286 @@
+package rockets.dataaccess.columnar;
+
+import rockets.dataaccess.DAO;
+import rockets.model.Dictionaries;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.StringDictionary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Writes a {@link ColumnarLaunchStore} to a compact binary file and maps it back, so a
+ * restarted node can answer miner queries without loading and mapping every entity
+ * from the database first.
+ * <p>
+ * The file holds, big-endian:
+ * <ol>
+ * <li>a header: magic, version, and the number of launches, providers, rockets,
+ * orbits and launch sites;</li>
+ * <li>the orbit and launch site dictionaries the launch columns' codes refer to;</li>
+ * <li>the providers, then the rockets with their manufacturer's ordinal, each with
+ * every property of the entity;</li>
+ * <li>the store's launch columns one after another, every value fixed-width, so
+ * reading one is a single bulk copy out of the mapped file.</li>
+ * </ol>
+ * Strings are an int byte length, -1 for null, then UTF-8 bytes. Dictionary codes are
+ * translated to this process's {@link Dictionaries} on reading. A provider's
+ * {@link LaunchServiceProvider#getRockets() rockets} relationship is not written, so
+ * providers read back have none.
+ */
+public final class LaunchSnapshot {
+    private static final int MAGIC = 0x524B5453;
+
+    private static final int VERSION = 2;
+
+    private static final long NO_ID = Long.MIN_VALUE;
+
+    /**
+     * The bytes of one launch across all columns.
+     */
+    private static final int LAUNCH_BYTES = 2 * Long.BYTES + 5 * Integer.BYTES + 1;
+
+    private LaunchSnapshot() {
+    }
+
+    /**
+     * Writes the store to the file, replacing it atomically so readers never see a
+     * partial snapshot.
+     */
+    public static void write(ColumnarLaunchStore store, Path file) throws IOException {
+        notNull(store, "store cannot be null");
+        notNull(file, "file cannot be null");
+        List<LaunchServiceProvider> providers = new ArrayList<>();
+        Map<LaunchServiceProvider, Integer> providerOrdinals = new IdentityHashMap<>();
+        for (LaunchServiceProvider provider : store.providers) {
+            providerOrdinals.put(provider, providers.size());
+            providers.add(provider);
+        }
+        // manufacturers that never launched are only reachable through their rockets
+        for (Rocket rocket : store.rockets) {
+            LaunchServiceProvider manufacturer = rocket.getManufacturer();
+            if (null != manufacturer && !providerOrdinals.containsKey(manufacturer)) {
+                providerOrdinals.put(manufacturer, providers.size());
+                providers.add(manufacturer);
+            }
+        }
+
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(store.size);
+                out.writeInt(providers.size());
+                out.writeInt(store.rockets.length);
+                // interning may grow the dictionaries meanwhile, so each size is read once
+                int orbitCount = Dictionaries.ORBITS.size();
+                int siteCount = Dictionaries.LAUNCH_SITES.size();
+                out.writeInt(orbitCount);
+                out.writeInt(siteCount);
+                writeDictionary(out, Dictionaries.ORBITS, orbitCount);
+                writeDictionary(out, Dictionaries.LAUNCH_SITES, siteCount);
+                for (LaunchServiceProvider provider : providers) {
+                    out.writeLong(null == provider.getId() ? NO_ID : provider.getId());
+                    writeString(out, provider.getName());
+                    out.writeInt(provider.getYearFounded());
+                    writeString(out, provider.getCountry());
+                    writeString(out, provider.getHeadquarters());
+                    writeString(out, provider.getWikilink());
+                }
+                for (Rocket rocket : store.rockets) {
+                    out.writeLong(null == rocket.getId() ? NO_ID : rocket.getId());
+                    writeString(out, rocket.getName());
+                    writeString(out, rocket.getCountry());
+                    out.writeInt(null == rocket.getManufacturer() ? ColumnarLaunchStore.NONE : providerOrdinals.get(rocket.getManufacturer()));
+                    writeString(out, rocket.getMassToLEO());
+                    writeString(out, rocket.getMassToGTO());
+                    writeString(out, rocket.getMassToOther());
+                    writeString(out, rocket.getWikilink());
+                }
+                for (int i = 0; i < store.size; i++) {
+                    out.writeLong(store.ids[i]);
+                }
+                writeInts(out, store.epochDays, store.size);
+                writeInts(out, store.rocketOrdinals, store.size);
+                writeInts(out, store.providerOrdinals, store.size);
+                for (int i = 0; i < store.size; i++) {
+                    out.writeLong(store.priceCents[i]);
+                }
+                out.write(store.outcomes, 0, store.size);
+                writeInts(out, store.orbitCodes, store.size);
+                writeInts(out, store.siteCodes, store.size);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps the file back into a store whose launch answers are loaded from the DAO
+     * by id. Its rockets and providers are rebuilt from the file, with their ids.
+     */
+    public static ColumnarLaunchStore read(Path file, DAO dao) throws IOException {
+        notNull(file, "file cannot be null");
+        notNull(dao, "dao cannot be null");
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a launch snapshot: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported launch snapshot version " + version + ": " + file);
+        }
+        int size = buffer.getInt();
+        int providerCount = buffer.getInt();
+        int rocketCount = buffer.getInt();
+        int orbitCount = buffer.getInt();
+        int siteCount = buffer.getInt();
+        int[] orbitCodes = readDictionary(buffer, orbitCount, Dictionaries.ORBITS);
+        int[] siteCodes = readDictionary(buffer, siteCount, Dictionaries.LAUNCH_SITES);
+
+        LaunchServiceProvider[] providers = new LaunchServiceProvider[providerCount];
+        for (int i = 0; i < providerCount; i++) {
+            long id = buffer.getLong();
+            LaunchServiceProvider provider = new LaunchServiceProvider(readString(buffer), buffer.getInt(), readString(buffer));
+            String headquarters = readString(buffer);
+            if (null != headquarters) {
+                provider.setHeadquarters(headquarters);
+            }
+            provider.setWikilink(readString(buffer));
+            provider.setId(id == NO_ID ? null : id);
+            providers[i] = provider;
+        }
+        Rocket[] rockets = new Rocket[rocketCount];
+        for (int i = 0; i < rocketCount; i++) {
+            long id = buffer.getLong();
+            String name = readString(buffer);
+            String country = readString(buffer);
+            Rocket rocket = new Rocket(name, country, providers[buffer.getInt()]);
+            String massToLEO = readString(buffer);
+            if (null != massToLEO) {
+                rocket.setMassToLEO(massToLEO);
+            }
+            String massToGTO = readString(buffer);
+            if (null != massToGTO) {
+                rocket.setMassToGTO(massToGTO);
+            }
+            String massToOther = readString(buffer);
+            if (null != massToOther) {
+                rocket.setMassToOther(massToOther);
+            }
+            rocket.setWikilink(readString(buffer));
+            rocket.setId(id == NO_ID ? null : id);
+            rockets[i] = rocket;
+        }
+
+        if ((long) size * LAUNCH_BYTES != buffer.remaining()) {
+            throw new IOException("Truncated launch snapshot: " + file);
+        }
+        long[] ids = new long[size];
+        buffer.asLongBuffer().get(ids);
+        skip(buffer, size * Long.BYTES);
+        int[] epochDays = readInts(buffer, size);
+        int[] rocketOrdinals = readInts(buffer, size);
+        int[] providerOrdinals = readInts(buffer, size);
+        long[] priceCents = new long[size];
+        buffer.asLongBuffer().get(priceCents);
+        skip(buffer, size * Long.BYTES);
+        byte[] outcomes = new byte[size];
+        buffer.get(outcomes);
+        int[] orbits = translate(readInts(buffer, size), orbitCodes);
+        int[] sites = translate(readInts(buffer, size), siteCodes);
+
+        return new ColumnarLaunchStore(dao, size, ids, epochDays, rocketOrdinals, providerOrdinals,
+                priceCents, outcomes, orbits, sites, rockets, providers);
+    }
+
+    private static void writeDictionary(DataOutputStream out, StringDictionary dictionary, int size) throws IOException {
+        for (int code = 0; code < size; code++) {
+            writeString(out, dictionary.decode(code));
+        }
+    }
+
+    /**
+     * Returns this process's code for each code of the file's dictionary.
+     */
+    private static int[] readDictionary(ByteBuffer buffer, int size, StringDictionary dictionary) {
+        int[] codes = new int[size];
+        for (int code = 0; code < size; code++) {
+            codes[code] = dictionary.encode(readString(buffer));
+        }
+        return codes;
+    }
+
+    private static int[] translate(int[] values, int[] codes) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != ColumnarLaunchStore.NONE) {
+                values[i] = codes[values[i]];
+            }
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (null == value) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int size) throws IOException {
+        for (int i = 0; i < size; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int size) {
+        int[] values = new int[size];
+        buffer.asIntBuffer().get(values);
+        skip(buffer, size * Integer.BYTES);
+        return values;
+    }
+
+    private static void skip(ByteBuffer buffer, int bytes) {
+        // through Buffer, as newer JDKs compile ByteBuffer.position to an overload Java 8 lacks
+        ((Buffer) buffer).position(buffer.position() + bytes);
+    }
+}
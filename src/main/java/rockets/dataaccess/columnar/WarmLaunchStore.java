@@ -0,0 +1,130 @@
+package rockets.dataaccess.columnar;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.LaunchQueries;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Answers miner queries from a {@link ColumnarLaunchStore} that starts from the last
+ * {@link LaunchSnapshot} on disk, so a restarted node is ready as soon as the file is
+ * mapped. {@link #refresh()} catches up with the DAO by taking a new store, swapping it
+ * in and writing it as the next snapshot; {@link #schedule(long, TimeUnit)} does so
+ * periodically on a background thread, starting right away.
+ * <p>
+ * Answers may be as old as the last refresh. When refreshing in the background, the
+ * DAO must tolerate being read from that thread.
+ */
+public class WarmLaunchStore implements LaunchQueries, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(WarmLaunchStore.class);
+
+    private final DAO dao;
+
+    private final Path file;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("launch-snapshot-%d").setDaemon(true).build());
+
+    private volatile ColumnarLaunchStore store;
+
+    /**
+     * Starts from the snapshot file, or from a snapshot of the DAO taken now when the
+     * file is missing or unreadable.
+     */
+    public WarmLaunchStore(DAO dao, Path file) throws IOException {
+        notNull(dao, "dao cannot be null");
+        notNull(file, "file cannot be null");
+        this.dao = dao;
+        this.file = file;
+        try {
+            store = LaunchSnapshot.read(file, dao);
+            logger.info("Started from snapshot {} of {} launches", file, store.size());
+        } catch (NoSuchFileException e) {
+            refresh();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read snapshot {}: {}", file, e.toString());
+            refresh();
+        }
+    }
+
+    public ColumnarLaunchStore getStore() {
+        return store;
+    }
+
+    /**
+     * Takes a new store from the DAO, swaps it in and writes it as the snapshot.
+     */
+    public void refresh() throws IOException {
+        ColumnarLaunchStore fresh = ColumnarLaunchStore.snapshot(dao);
+        store = fresh;
+        LaunchSnapshot.write(fresh, file);
+    }
+
+    public void schedule(long period, TimeUnit unit) {
+        isTrue(period > 0, "period must be positive");
+        notNull(unit, "unit cannot be null");
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not refresh snapshot {}", file, e);
+            }
+        }, 0, period, unit);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public List<Rocket> mostLaunchedRockets(int k) {
+        return store.mostLaunchedRockets(k);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        return store.mostReliableLaunchServiceProviders(k);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k) {
+        return store.mostUnreliableLaunchServiceProviders(k);
+    }
+
+    @Override
+    public List<Launch> mostRecentLaunches(int k) {
+        return store.mostRecentLaunches(k);
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k) {
+        return store.mostExpensiveLaunches(k);
+    }
+
+    @Override
+    public String dominantCountry(String orbit) {
+        return store.dominantCountry(orbit);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        return store.highestRevenueLaunchServiceProviders(k, year);
+    }
+}
@@ -0,0 +1,116 @@
+package rockets.dataaccess.index;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityView;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.Projection;
+import rockets.model.Entity;
+import rockets.model.Launch;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A {@link DAO} decorator keeping a {@link LaunchDateIndex} of the launches saved and
+ * deleted through it, and offering it as its {@link #launchDateIndex() date index}.
+ * <p>
+ * The index starts from the launches already in the delegate; launches written to the
+ * delegate directly are only seen after {@link #rebuild()}.
+ */
+public class DateIndexedDAO implements DAO {
+    private final DAO delegate;
+
+    private final LaunchDateIndex index = new LaunchDateIndex();
+
+    public DateIndexedDAO(DAO delegate) {
+        notNull(delegate, "delegate cannot be null");
+        this.delegate = delegate;
+        rebuild();
+    }
+
+    /**
+     * Re-indexes every launch of the delegate.
+     */
+    public void rebuild() {
+        try (Stream<Launch> launches = delegate.stream(Launch.class)) {
+            index.reindex(launches::iterator);
+        }
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        return delegate.load(clazz, id);
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, int depth) {
+        return delegate.load(clazz, id, depth);
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        T saved = delegate.createOrUpdate(entity);
+        if (saved instanceof Launch) {
+            index.update((Launch) saved);
+        }
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> List<T> createOrUpdateAll(Collection<T> entities) {
+        List<T> saved = delegate.createOrUpdateAll(entities);
+        for (T entity : saved) {
+            if (entity instanceof Launch) {
+                index.update((Launch) entity);
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> Optional<T> findExisting(T entity) {
+        return delegate.findExisting(entity);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        return delegate.loadAll(clazz);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, int depth) {
+        return delegate.loadAll(clazz, depth);
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return delegate.stream(clazz);
+    }
+
+    @Override
+    public Stream<EntityView> project(Projection projection) {
+        return delegate.project(projection);
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        delegate.delete(entity);
+        if (entity instanceof Launch) {
+            index.remove((Launch) entity);
+        }
+    }
+
+    @Override
+    public Optional<LaunchQueries> launchQueries() {
+        return delegate.launchQueries();
+    }
+
+    @Override
+    public Optional<LaunchDateIndex> launchDateIndex() {
+        return Optional.of(index);
+    }
+}
@@ -0,0 +1,188 @@
+package rockets.dataaccess.index;
+
+import rockets.model.Launch;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Launches kept sorted by launch date in an array list, so date ranges, years and the
+ * latest launches are found by binary search instead of a scan. Launches on the same
+ * day keep the order they were first indexed in, as in a stable sort; launches without
+ * a date are kept apart and only come last in {@link #latest(int)}.
+ * <p>
+ * Launches are identified by id; re-indexing a launch moves it to its new date.
+ * Thread-safe.
+ */
+public class LaunchDateIndex {
+    private static final Comparator<Entry> BY_DATE = Comparator.comparingLong((Entry e) -> e.epochDay).thenComparingLong(e -> e.sequence);
+
+    private final List<Entry> dated = new ArrayList<>();
+
+    private final Map<Long, Entry> entriesById = new HashMap<>();
+
+    private final Map<Long, Launch> undated = new LinkedHashMap<>();
+
+    private long sequence;
+
+    /**
+     * Indexes the launch, or moves it if it was indexed before. Launches without an id
+     * are ignored.
+     */
+    public synchronized void update(Launch launch) {
+        if (null == launch.getId()) {
+            return;
+        }
+        Entry previous = unindex(launch.getId());
+        long order = null == previous ? sequence++ : previous.sequence;
+        if (null == launch.getLaunchDate()) {
+            undated.put(launch.getId(), launch);
+            entriesById.put(launch.getId(), new Entry(Long.MIN_VALUE, order, launch));
+            return;
+        }
+        Entry entry = new Entry(launch.getLaunchDate().toEpochDay(), order, launch);
+        int position = -Collections.binarySearch(dated, entry, BY_DATE) - 1;
+        dated.add(position, entry);
+        entriesById.put(launch.getId(), entry);
+    }
+
+    /**
+     * Replaces the indexed launches with the given ones, sorting them once rather than
+     * inserting them one by one. A launch given twice is indexed as last given.
+     */
+    public synchronized void reindex(Iterable<Launch> launches) {
+        clear();
+        for (Launch launch : launches) {
+            if (null == launch.getId()) {
+                continue;
+            }
+            Entry previous = entriesById.get(launch.getId());
+            long order = null == previous ? sequence++ : previous.sequence;
+            undated.remove(launch.getId());
+            if (null == launch.getLaunchDate()) {
+                undated.put(launch.getId(), launch);
+                entriesById.put(launch.getId(), new Entry(Long.MIN_VALUE, order, launch));
+            } else {
+                entriesById.put(launch.getId(), new Entry(launch.getLaunchDate().toEpochDay(), order, launch));
+            }
+        }
+        for (Map.Entry<Long, Entry> entry : entriesById.entrySet()) {
+            if (!undated.containsKey(entry.getKey())) {
+                dated.add(entry.getValue());
+            }
+        }
+        dated.sort(BY_DATE);
+    }
+
+    public synchronized void remove(Launch launch) {
+        if (null != launch.getId()) {
+            unindex(launch.getId());
+        }
+    }
+
+    private Entry unindex(Long id) {
+        Entry entry = entriesById.remove(id);
+        if (null == entry) {
+            return null;
+        }
+        if (null != undated.remove(id)) {
+            return entry;
+        }
+        dated.remove(Collections.binarySearch(dated, entry, BY_DATE));
+        return entry;
+    }
+
+    public synchronized void clear() {
+        dated.clear();
+        entriesById.clear();
+        undated.clear();
+    }
+
+    public synchronized int size() {
+        return entriesById.size();
+    }
+
+    /**
+     * Returns the launches from the first date to the last, both included, in date order.
+     */
+    public synchronized List<Launch> launchesBetween(LocalDate first, LocalDate last) {
+        notNull(first, "first date cannot be null");
+        notNull(last, "last date cannot be null");
+        int from = lowerBound(first.toEpochDay());
+        int to = lowerBound(last.toEpochDay() + 1);
+        List<Launch> launches = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            launches.add(dated.get(i).launch);
+        }
+        return launches;
+    }
+
+    /**
+     * Returns the launches of the year in date order.
+     */
+    public List<Launch> inYear(int year) {
+        return launchesBetween(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+    }
+
+    /**
+     * Returns the k most recent launches, most recent first, then undated launches if
+     * fewer than k are dated.
+     */
+    public synchronized List<Launch> latest(int k) {
+        isTrue(k >= 0, "k cannot be negative: %d", k);
+        List<Launch> launches = new ArrayList<>(Math.min(k, entriesById.size()));
+        int end = dated.size();
+        while (launches.size() < k && end > 0) {
+            int start = lowerBound(dated.get(end - 1).epochDay);
+            for (int i = start; i < end && launches.size() < k; i++) {
+                launches.add(dated.get(i).launch);
+            }
+            end = start;
+        }
+        for (Launch launch : undated.values()) {
+            if (launches.size() == k) {
+                break;
+            }
+            launches.add(launch);
+        }
+        return launches;
+    }
+
+    /**
+     * Returns the position of the first launch on or after the day.
+     */
+    private int lowerBound(long epochDay) {
+        int low = 0;
+        int high = dated.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dated.get(middle).epochDay < epochDay) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static final class Entry {
+        private final long epochDay;
+        private final long sequence;
+        private final Launch launch;
+
+        private Entry(long epochDay, long sequence, Launch launch) {
+            this.epochDay = epochDay;
+            this.sequence = sequence;
+            this.launch = launch;
+        }
+    }
+}
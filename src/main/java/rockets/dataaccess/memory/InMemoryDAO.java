@@ -0,0 +1,72 @@
+package rockets.dataaccess.memory;
+
+import rockets.dataaccess.DAO;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.Rocket;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link DAO} keeping entities in heap maps, for tests and benchmarks that must run
+ * without a database. Entities are identified by id only: unlike
+ * {@link rockets.dataaccess.neo4j.Neo4jDAO} there is no natural-key lookup, so saving
+ * an entity without an id always stores a new one. Like the OGM, saving a launch or
+ * rocket also saves the unsaved rocket and launch service provider it refers to.
+ * <p>
+ * Not thread-safe.
+ */
+public class InMemoryDAO implements DAO {
+    private final AtomicLong ids = new AtomicLong();
+
+    private final Map<Class<?>, Map<Long, Entity>> entitiesById = new HashMap<>();
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        return clazz.cast(byId(clazz).get(id));
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        if (entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            saveReference(launch.getLaunchVehicle());
+            saveReference(launch.getLaunchServiceProvider());
+        } else if (entity instanceof Rocket) {
+            saveReference(((Rocket) entity).getManufacturer());
+        }
+        if (null == entity.getId()) {
+            entity.setId(ids.incrementAndGet());
+        }
+        byId(entity.getClass()).put(entity.getId(), entity);
+        return entity;
+    }
+
+    private void saveReference(Entity entity) {
+        if (null != entity && null == entity.getId()) {
+            createOrUpdate(entity);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        return Collections.unmodifiableCollection((Collection<T>) byId(clazz).values());
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        if (null == entity.getId() || null == byId(entity.getClass()).remove(entity.getId())) {
+            throw new IllegalArgumentException("Entity does not exist in the Database");
+        }
+    }
+
+    private Map<Long, Entity> byId(Class<?> clazz) {
+        return entitiesById.computeIfAbsent(clazz, c -> new LinkedHashMap<>());
+    }
+}
@@ -0,0 +1,92 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.ImmutableMap;
+import org.neo4j.ogm.session.Session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the ids of every node of a label in ascending pages. Neo4j 3.3 can seek nodes
+ * by id but not by a range of ids, so {@code id(n) > $after} would scan the whole label
+ * for every page. Instead the highest id of the label is read once, with one label
+ * scan, and each page seeks the ids of a window above the last id seen, keeping the
+ * nodes of the label. The window follows the density of the label between pages, so a
+ * full scan seeks about as many ids as the id range of the label spans, whatever the
+ * page size. Nodes created with a higher id once the scan started are not listed.
+ */
+final class IdPages {
+    private static final String HIGHEST_ID = "MATCH (n:`%s`) RETURN max(id(n)) AS id";
+
+    private static final String IDS_IN_WINDOW = "MATCH (n) WHERE id(n) IN range($from, $to) "
+            + "WITH n WHERE n:`%s` RETURN id(n) AS id ORDER BY id LIMIT $size";
+
+    private static final long MAX_WINDOW = 1 << 20;
+
+    private final Session session;
+
+    private final String label;
+
+    private final String idsInWindow;
+
+    private final int pageSize;
+
+    private Long highest;
+
+    private long after = -1;
+
+    private long window;
+
+    IdPages(Session session, String label, int pageSize) {
+        this.session = session;
+        this.label = label;
+        this.idsInWindow = String.format(IDS_IN_WINDOW, label);
+        this.pageSize = pageSize;
+        this.window = pageSize;
+    }
+
+    /**
+     * Returns the ids of the next page, at most page size of them, or an empty list once
+     * every id has been listed.
+     */
+    List<Long> next() {
+        if (null == highest) {
+            highest = readHighest();
+        }
+        while (after < highest) {
+            long from = after + 1;
+            long to = Math.min(highest, after + window);
+            List<Long> ids = idsIn(from, to);
+            if (ids.size() == pageSize) {
+                after = ids.get(ids.size() - 1);
+                window = Math.max(pageSize, after - from + 1);
+            } else {
+                after = to;
+                window = Math.min(MAX_WINDOW, ids.isEmpty() ? window * 2 : window * pageSize / ids.size());
+            }
+            if (!ids.isEmpty()) {
+                return ids;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private long readHighest() {
+        for (Map<String, Object> row : session.query(String.format(HIGHEST_ID, label), Collections.emptyMap()).queryResults()) {
+            Object id = row.get("id");
+            return null == id ? -1 : ((Number) id).longValue();
+        }
+        return -1;
+    }
+
+    private List<Long> idsIn(long from, long to) {
+        Map<String, Object> parameters = ImmutableMap.of("from", from, "to", to, "size", (long) pageSize);
+        List<Long> ids = new ArrayList<>(pageSize);
+        for (Map<String, Object> row : session.query(idsInWindow, parameters).queryResults()) {
+            ids.add(((Number) row.get("id")).longValue());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,80 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.util.concurrent.Striped;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Striped locks on natural keys, so that writers of the same key, which could each miss
+ * the other's node and create a duplicate, take turns while writers of unrelated keys
+ * rarely share a stripe.
+ */
+final class KeyLocks {
+    private final Striped<Lock> stripes;
+
+    KeyLocks(int stripes) {
+        this.stripes = Striped.lock(stripes);
+    }
+
+    /**
+     * Locks the stripes of every key, always in stripe order so that writers locking
+     * overlapping keys cannot deadlock, and returns the locks taken.
+     */
+    List<Lock> lock(Collection<?> keys) {
+        List<Lock> locked = new ArrayList<>();
+        try {
+            for (Lock lock : stripes.bulkGet(keys)) {
+                if (locked.isEmpty() || locked.get(locked.size() - 1) != lock) {
+                    lock.lock();
+                    locked.add(lock);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            unlock(locked);
+            throw e;
+        }
+        return locked;
+    }
+
+    /**
+     * Locks the stripes of every key like {@link #lock(Collection)}, but gives up once
+     * the timeout has passed, releasing the locks taken. Writers that keep locks across
+     * calls take them this way: their later calls may lock stripes out of order.
+     *
+     * @throws IllegalStateException if a stripe stays locked for the whole timeout, or
+     *                               the thread is interrupted while waiting
+     */
+    List<Lock> tryLock(Collection<?> keys, long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Lock> locked = new ArrayList<>();
+        try {
+            for (Lock lock : stripes.bulkGet(keys)) {
+                if (locked.isEmpty() || locked.get(locked.size() - 1) != lock) {
+                    if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        throw new IllegalStateException("Timed out after " + unit.toMillis(timeout)
+                                + " ms waiting for a natural-key lock held by another writer");
+                    }
+                    locked.add(lock);
+                }
+            }
+        } catch (InterruptedException e) {
+            unlock(locked);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a natural-key lock", e);
+        } catch (RuntimeException | Error e) {
+            unlock(locked);
+            throw e;
+        }
+        return locked;
+    }
+
+    static void unlock(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.context.MappingContext;
+import org.neo4j.ogm.session.Neo4jSession;
+import org.neo4j.ogm.session.Session;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts and lists the node entities a session keeps in its mapping context. The OGM
+ * does not expose them, so they are read from the context's node register, which OGM
+ * 3.1 keeps in a private field.
+ */
+final class MappedEntities {
+    static final int UNKNOWN = -1;
+
+    private static final Field NODE_ENTITY_REGISTER = nodeEntityRegister();
+
+    private MappedEntities() {
+    }
+
+    private static Field nodeEntityRegister() {
+        try {
+            Field field = MappingContext.class.getDeclaredField("nodeEntityRegister");
+            field.setAccessible(true);
+            return Map.class.isAssignableFrom(field.getType()) ? field : null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of node entities the session maps, or {@link #UNKNOWN} if the
+     * session or OGM version does not allow counting them.
+     */
+    static int count(Session session) {
+        if (null == NODE_ENTITY_REGISTER || !(session instanceof Neo4jSession)) {
+            return UNKNOWN;
+        }
+        try {
+            return ((Map<?, ?>) NODE_ENTITY_REGISTER.get(((Neo4jSession) session).context())).size();
+        } catch (IllegalAccessException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Returns the ids of the node entities the session, or the session it
+     * {@link TracingSession wraps}, maps at the time of the call; empty if the OGM
+     * version does not allow listing them.
+     */
+    static Set<Long> ids(Session session) {
+        Session untraced = TracingSession.unwrap(session);
+        if (null == NODE_ENTITY_REGISTER || !(untraced instanceof Neo4jSession)) {
+            return Collections.emptySet();
+        }
+        try {
+            Set<Long> ids = new HashSet<>();
+            for (Object id : ((Map<?, ?>) NODE_ENTITY_REGISTER.get(((Neo4jSession) untraced).context())).keySet()) {
+                ids.add(((Number) id).longValue());
+            }
+            return ids;
+        } catch (IllegalAccessException e) {
+            return Collections.emptySet();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.ImmutableMap;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+import rockets.model.User;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The natural keys {@link Neo4jDAO} identifies entities by, and the Cypher that
+ * resolves many of them to node ids in one query. A launch is identified by its date,
+ * site, outcome and the natural key of its launch vehicle.
+ */
+final class NaturalKeys {
+    private static final Map<Class<?>, String> LOOKUPS = ImmutableMap.of(
+            Rocket.class,
+            "UNWIND $keys AS key MATCH (n:Rocket) WHERE n.name = key.name AND n.country = key.country " +
+            "RETURN key.index AS index, min(id(n)) AS id",
+            LaunchServiceProvider.class,
+            "UNWIND $keys AS key MATCH (n:LaunchServiceProvider) " +
+            "WHERE n.name = key.name AND n.yearFounded = key.yearFounded AND n.country = key.country " +
+            "RETURN key.index AS index, min(id(n)) AS id",
+            User.class,
+            "UNWIND $keys AS key MATCH (n:User) WHERE n.email = key.email " +
+            "RETURN key.index AS index, min(id(n)) AS id",
+            Launch.class,
+            "UNWIND $keys AS key MATCH (n:Launch)-[:LAUNCH_VEHICLE]->(r:Rocket) " +
+            "WHERE n.launchDate = key.launchDate AND n.launchSite = key.launchSite AND n.launchOutcome = key.launchOutcome " +
+            "AND r.name = key.rocketName AND r.country = key.rocketCountry " +
+            "RETURN key.index AS index, min(id(n)) AS id");
+
+    private NaturalKeys() {
+    }
+
+    static boolean isKeyed(Class<?> clazz) {
+        return LOOKUPS.containsKey(clazz);
+    }
+
+    /**
+     * Returns the Cypher resolving a list of keys, passed as {@code $keys} maps with an
+     * {@code index} entry, to rows of {@code index} and node {@code id}.
+     */
+    static String lookup(Class<?> clazz) {
+        return LOOKUPS.get(clazz);
+    }
+
+    /**
+     * Returns the key as comparable values, or null when the entity has no natural key.
+     */
+    static List<Object> keyOf(Entity entity) {
+        if (entity instanceof Rocket) {
+            Rocket rocket = (Rocket) entity;
+            return Arrays.asList(rocket.getName(), rocket.getCountry());
+        } else if (entity instanceof LaunchServiceProvider) {
+            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
+            return Arrays.asList(lsp.getName(), lsp.getYearFounded(), lsp.getCountry());
+        } else if (entity instanceof User) {
+            return Arrays.asList(((User) entity).getEmail());
+        } else if (entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            Rocket vehicle = launch.getLaunchVehicle();
+            return Arrays.asList(launch.getLaunchDate(), launch.getLaunchSite(), launch.getLaunchOutcome(),
+                    null == vehicle ? null : vehicle.getName(), null == vehicle ? null : vehicle.getCountry());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key as Cypher parameters, in the form the graph stores them.
+     */
+    static Map<String, Object> parametersOf(Entity entity, int index) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("index", index);
+        if (entity instanceof Rocket) {
+            Rocket rocket = (Rocket) entity;
+            parameters.put("name", rocket.getName());
+            parameters.put("country", rocket.getCountry());
+        } else if (entity instanceof LaunchServiceProvider) {
+            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
+            parameters.put("name", lsp.getName());
+            parameters.put("yearFounded", lsp.getYearFounded());
+            parameters.put("country", lsp.getCountry());
+        } else if (entity instanceof User) {
+            parameters.put("email", ((User) entity).getEmail());
+        } else if (entity instanceof Launch) {
+            Launch launch = (Launch) entity;
+            Rocket vehicle = launch.getLaunchVehicle();
+            parameters.put("launchDate", null == launch.getLaunchDate() ? null : launch.getLaunchDate().toString());
+            parameters.put("launchSite", launch.getLaunchSite());
+            parameters.put("launchOutcome", null == launch.getLaunchOutcome() ? null : launch.getLaunchOutcome().name());
+            parameters.put("rocketName", null == vehicle ? null : vehicle.getName());
+            parameters.put("rocketCountry", null == vehicle ? null : vehicle.getCountry());
+        }
+        return parameters;
+    }
+}
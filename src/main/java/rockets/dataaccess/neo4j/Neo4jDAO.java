@@ -1,95 +1,603 @@
 package rockets.dataaccess.neo4j;
 
-import com.google.common.collect.Sets;
-import org.neo4j.ogm.cypher.Filter;
-import org.neo4j.ogm.cypher.Filters;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.session.SessionFactory;
 import org.neo4j.ogm.transaction.Transaction;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityView;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.Projection;
+import rockets.metrics.Metrics;
 import rockets.model.Entity;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
 import rockets.model.Rocket;
 import rockets.model.User;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static org.neo4j.ogm.cypher.ComparisonOperator.EQUALS;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+import static org.apache.commons.lang3.Validate.validState;
 
 public class Neo4jDAO implements DAO {
-    private static final int DEPTH_ENTITY = 1;
+    private static final int DEFAULT_DEPTH = 1;
 
-    private Session session;
+    private static final int DEFAULT_PAGE_SIZE = 1000;
 
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final int DEFAULT_LOCK_STRIPES = 1024;
+
+    private static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Referenced entities come before the entities referring to them.
+     */
+    private static final List<Class<? extends Entity>> SAVE_ORDER =
+            Arrays.asList(LaunchServiceProvider.class, Rocket.class, Launch.class, User.class);
+
+    /**
+     * The session every call uses, or null when sessions come from the factory.
+     */
+    private final Session sharedSession;
+
+    /**
+     * The shared session without tracing, whose mapped entities can be counted.
+     */
+    private final Session untracedSession;
+
+    private final SessionFactory sessionFactory;
+
+    private final ThreadLocal<UnitOfWork> units = new ThreadLocal<>();
+
+    private final LaunchQueries launchQueries;
+
+    private int depth = DEFAULT_DEPTH;
+
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private KeyLocks keyLocks = new KeyLocks(DEFAULT_LOCK_STRIPES);
+
+    private long lockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_LOCK_TIMEOUT_MILLIS);
+
+    private Metrics metrics = new Metrics();
+
+    private int clearEvery;
+
+    private int maxMappedEntities;
+
+    private boolean clearAfterScans;
+
+    private int operationsSinceClear;
+
+    /**
+     * Creates a DAO making every call on one session, bootstrapping the natural-key
+     * indexes of the graph if missing. Sessions are not thread-safe, so neither is the
+     * DAO. The session keeps every entity it maps until cleared; see
+     * {@link #setClearEvery(int)}, {@link #setMaxMappedEntities(int)} and
+     * {@link #setClearAfterScans(boolean)} for long-running processes.
+     */
     public Neo4jDAO(Session session) {
-        this.session = session;
+        notNull(session, "session cannot be null");
+        this.untracedSession = session;
+        this.sharedSession = TracingSession.wrap(session);
+        this.sessionFactory = null;
+        this.launchQueries = new Neo4jLaunchQueries(this::session, DEFAULT_DEPTH);
+        new Neo4jSchema(this.sharedSession).bootstrap();
+        addGauges();
+    }
+
+    /**
+     * Creates a thread-safe DAO opening a session per call, or per
+     * {@link #openUnitOfWork() unit of work}, from the factory, so that calls from
+     * several threads run at once. Entities are not shared between calls: each load
+     * returns its own copies, and a stream keeps its session until it is consumed.
+     * Concurrent upserts of one natural key create a single node.
+     */
+    public Neo4jDAO(SessionFactory sessionFactory) {
+        notNull(sessionFactory, "sessionFactory cannot be null");
+        this.untracedSession = null;
+        this.sharedSession = null;
+        this.sessionFactory = sessionFactory;
+        this.launchQueries = new Neo4jLaunchQueries(this::session, DEFAULT_DEPTH);
+        new Neo4jSchema(session()).bootstrap();
+    }
+
+    /**
+     * Returns the session of the unit of work open on this thread, else the shared
+     * session, else a new session.
+     */
+    private Session session() {
+        UnitOfWork unit = units.get();
+        if (null != unit) {
+            return unit.getSession();
+        }
+        if (null == sharedSession) {
+            return TracingSession.wrap(sessionFactory.openSession());
+        }
+        if (clearEvery > 0 && operationsSinceClear >= clearEvery
+                || maxMappedEntities > 0 && getMappedEntities() > maxMappedEntities) {
+            clearSession();
+        }
+        operationsSinceClear++;
+        return sharedSession;
+    }
+
+    /**
+     * Opens a unit of work on the current thread: until it is closed, the calls this
+     * thread makes on the DAO share one session and one transaction, which
+     * {@link UnitOfWork#commit()} commits and closing an uncommitted unit rolls back.
+     * A write of the unit waiting longer than the {@link #setLockTimeout(long, TimeUnit)
+     * lock timeout} for a natural-key lock another unit holds fails with an
+     * {@link IllegalStateException}, and the unit should then be closed.
+     *
+     * @throws IllegalStateException if a unit of work is already open on this thread
+     */
+    public UnitOfWork openUnitOfWork() {
+        validState(null == units.get(), "a unit of work is already open on this thread");
+        Session session = null != sharedSession ? sharedSession : TracingSession.wrap(sessionFactory.openSession());
+        UnitOfWork unit = new UnitOfWork(session, units::remove);
+        units.set(unit);
+        return unit;
+    }
+
+    /**
+     * Runs the work in a {@link #openUnitOfWork() unit of work}, committing it if the
+     * work returns and rolling it back if the work throws.
+     */
+    public <T> T inUnitOfWork(Supplier<T> work) {
+        notNull(work, "work cannot be null");
+        try (UnitOfWork unit = openUnitOfWork()) {
+            T result = work.get();
+            unit.commit();
+            return result;
+        }
+    }
+
+    /**
+     * Runs the work in a transaction of its own, or in the transaction of the unit of
+     * work open on the session.
+     */
+    private static <T> T inTransaction(Session session, Supplier<T> work) {
+        if (null != session.getTransaction()) {
+            return work.get();
+        }
+        Transaction tx = session.beginTransaction();
+        try {
+            T result = work.get();
+            tx.commit();
+            return result;
+        } finally {
+            tx.close();
+        }
     }
 
     @Override
     public <T extends Entity> T load(Class<T> clazz, Long id) {
-        return session.load(clazz, id, DEPTH_ENTITY);
+        return load(clazz, id, depth);
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, int depth) {
+        isTrue(depth >= 0, "depth cannot be negative");
+        return RoundTripTrace.call("load[" + clazz.getSimpleName() + "]", () -> session().load(clazz, id, depth));
     }
 
     @Override
     public <T extends Entity> T createOrUpdate(T entity) {
-        Class clazz = entity.getClass();
+        return RoundTripTrace.call("createOrUpdate[" + entity.getClass().getSimpleName() + "]", () -> save(session(), entity));
+    }
+
+    private <T extends Entity> T save(Session session, T entity) {
+        return withIdsTakenBackOnRollback(Collections.singleton(entity), () ->
+                withUnsavedKeysLocked(unsavedKeysOf(Collections.singleton(entity)), () -> {
+                    Class<? extends Entity> clazz = entity.getClass();
+
+                    T existingEntity = findExistingEntity(session, entity, clazz);
+                    if (null != existingEntity) {
+                        entity.setId(existingEntity.getId());
+                    }
+                    return inTransaction(session, () -> {
+                        session.save(entity);
+                        return entity;
+                    });
+                }));
+    }
+
+    /**
+     * Resolves the natural keys of the entities, and of the rockets and providers they
+     * refer to, with one query per entity type, then saves them in chunks of
+     * {@link #setBatchSize(int) batch size} entities within a single transaction.
+     * Entities of the batch sharing a natural key end up as one node.
+     */
+    @Override
+    public <T extends Entity> List<T> createOrUpdateAll(Collection<T> entities) {
+        notNull(entities, "entities cannot be null");
+        return RoundTripTrace.call("createOrUpdateAll", () -> saveAll(session(), entities));
+    }
+
+    private <T extends Entity> List<T> saveAll(Session session, Collection<T> entities) {
+        Map<Class<?>, Map<List<Object>, List<Entity>>> unsaved = unsavedKeysOf(entities);
+        return withIdsTakenBackOnRollback(entities, () -> withUnsavedKeysLocked(unsaved, () -> {
+            for (Map.Entry<Class<?>, Map<List<Object>, List<Entity>>> entry : unsaved.entrySet()) {
+                resolveExistingIds(session, entry.getKey(), entry.getValue());
+            }
+
+            return inTransaction(session, () -> {
+                for (Class<? extends Entity> clazz : SAVE_ORDER) {
+                    saveSharedKeys(session, unsaved.getOrDefault(clazz, Collections.emptyMap()));
+                }
+                for (List<T> chunk : Iterables.partition(entities, batchSize)) {
+                    session.save(chunk);
+                }
+                return new ArrayList<>(entities);
+            });
+        }));
+    }
 
-        T existingEntity = findExistingEntity(entity, clazz);
-        if (null != existingEntity) {
-            entity.setId(existingEntity.getId());
+    /**
+     * Runs a write that may give ids to the entities, and to the rockets and providers
+     * they refer to, taking back the ids of those that had none if the write is rolled
+     * back: at once if it fails, or when the unit of work open on this thread rolls
+     * back. The entities can then be saved again as new.
+     */
+    private <T> T withIdsTakenBackOnRollback(Collection<? extends Entity> entities, Supplier<T> write) {
+        List<Entity> unidentified = new ArrayList<>();
+        Set<Entity> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entity entity : entities) {
+            collectUnidentified(entity, unidentified, visited);
+        }
+        UnitOfWork unit = units.get();
+        if (null != unit) {
+            unit.takeBackIdsOnRollback(unidentified);
+            return write.get();
+        }
+        try {
+            return write.get();
+        } catch (RuntimeException | Error e) {
+            unidentified.forEach(entity -> entity.setId(null));
+            throw e;
+        }
+    }
+
+    /**
+     * Groups the entities without an id, and the rockets and providers they refer to,
+     * by class and natural key.
+     */
+    private static Map<Class<?>, Map<List<Object>, List<Entity>>> unsavedKeysOf(Collection<? extends Entity> entities) {
+        Map<Class<?>, Map<List<Object>, List<Entity>>> unsaved = new LinkedHashMap<>();
+        Set<Entity> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entity entity : entities) {
+            notNull(entity, "entities cannot contain null");
+            collectUnsaved(entity, unsaved, visited);
+        }
+        return unsaved;
+    }
+
+    /**
+     * Runs a write while holding the locks of the natural keys it may create nodes for,
+     * so that concurrent writers of a key cannot both miss the other's node. The locks
+     * are released once the write is committed: at the end of the call, or when the
+     * unit of work open on this thread closes. A unit's later writes may then need
+     * stripes out of order, so units wait for them at most the lock timeout rather
+     * than deadlock with each other.
+     */
+    private <T> T withUnsavedKeysLocked(Map<Class<?>, Map<List<Object>, List<Entity>>> unsaved, Supplier<T> write) {
+        List<List<Object>> keys = new ArrayList<>();
+        unsaved.forEach((clazz, entitiesByKey) -> entitiesByKey.keySet()
+                .forEach(key -> keys.add(lockKeyOf(clazz, key))));
+        UnitOfWork unit = units.get();
+        if (null != unit) {
+            unit.holdUntilClose(keyLocks.tryLock(keys, lockTimeoutNanos, TimeUnit.NANOSECONDS));
+            return write.get();
+        }
+        List<Lock> locks = keyLocks.lock(keys);
+        try {
+            return write.get();
+        } finally {
+            KeyLocks.unlock(locks);
+        }
+    }
+
+    /**
+     * Returns the key whose lock stripe guards the natural key of entities of the class.
+     */
+    static List<Object> lockKeyOf(Class<?> clazz, List<Object> naturalKey) {
+        return Arrays.asList(clazz, naturalKey);
+    }
+
+    private static void collectUnsaved(Entity entity, Map<Class<?>, Map<List<Object>, List<Entity>>> unsaved, Set<Entity> visited) {
+        if (null == entity || !visited.add(entity)) {
+            return;
+        }
+        if (null == entity.getId() && NaturalKeys.isKeyed(entity.getClass())) {
+            unsaved.computeIfAbsent(entity.getClass(), clazz -> new LinkedHashMap<>())
+                    .computeIfAbsent(NaturalKeys.keyOf(entity), key -> new ArrayList<>())
+                    .add(entity);
+        }
+        if (entity instanceof Launch) {
+            collectUnsaved(((Launch) entity).getLaunchVehicle(), unsaved, visited);
+            collectUnsaved(((Launch) entity).getLaunchServiceProvider(), unsaved, visited);
+        } else if (entity instanceof Rocket) {
+            collectUnsaved(((Rocket) entity).getManufacturer(), unsaved, visited);
+        }
+    }
+
+    private static void collectUnidentified(Entity entity, List<Entity> unidentified, Set<Entity> visited) {
+        if (null == entity || !visited.add(entity)) {
+            return;
+        }
+        if (null == entity.getId()) {
+            unidentified.add(entity);
+        }
+        if (entity instanceof Launch) {
+            collectUnidentified(((Launch) entity).getLaunchVehicle(), unidentified, visited);
+            collectUnidentified(((Launch) entity).getLaunchServiceProvider(), unidentified, visited);
+        } else if (entity instanceof Rocket) {
+            collectUnidentified(((Rocket) entity).getManufacturer(), unidentified, visited);
+        }
+    }
+
+    private void resolveExistingIds(Session session, Class<?> clazz, Map<List<Object>, List<Entity>> entitiesByKey) {
+        List<List<Entity>> groups = new ArrayList<>(entitiesByKey.values());
+        List<Map<String, Object>> keys = new ArrayList<>(groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            keys.add(NaturalKeys.parametersOf(groups.get(i).get(0), i));
+        }
+        List<Map<String, Object>> rows = metrics.time("neo4j.resolveExistingIds", clazz, () ->
+                Lists.newArrayList(session.query(NaturalKeys.lookup(clazz), ImmutableMap.of("keys", keys)).queryResults()));
+        for (Map<String, Object> row : rows) {
+            Long id = ((Number) row.get("id")).longValue();
+            for (Entity entity : groups.get(((Number) row.get("index")).intValue())) {
+                entity.setId(id);
+            }
+        }
+    }
+
+    /**
+     * Saves one of several new entities sharing a natural key and hands its id to the
+     * others, so that the batch does not create the node more than once.
+     */
+    private void saveSharedKeys(Session session, Map<List<Object>, List<Entity>> entitiesByKey) {
+        for (List<Entity> group : entitiesByKey.values()) {
+            Entity first = group.get(0);
+            if (group.size() > 1 && null == first.getId()) {
+                session.save(first);
+                for (Entity entity : group) {
+                    entity.setId(first.getId());
+                }
+            }
         }
-        Transaction tx = session.beginTransaction();
-        session.save(entity);
-        tx.commit();
-        return entity;
-    }
-
-    private <T extends Entity> T findExistingEntity(Entity entity, Class clazz) {
-        Entity existingEntity = null;
-        Filters filters = new Filters();
-        Collection<? extends Entity> collection = Sets.newLinkedHashSet();
-        if (clazz.equals(Rocket.class)) {
-            Rocket rocket = (Rocket) entity;
-            filters.add(new Filter("name", EQUALS, rocket.getName()))
-                    .and(new Filter("country", EQUALS, rocket.getCountry()));
-            collection = session.loadAll(Rocket.class, filters);
-        } else if (clazz.equals(User.class)) {
-            User user = (User) entity;
-            filters.add(new Filter("email", EQUALS, user.getEmail()));
-            collection = session.loadAll(User.class, filters);
-        } else if (clazz.equals(Launch.class)) {
-            Launch launch = (Launch) entity;
-            filters.add(new Filter("launchDate", EQUALS, launch.getLaunchDate()))
-                    .and(new Filter("launchVehicle", EQUALS, launch.getLaunchVehicle()))
-                    .and(new Filter("launchSite", EQUALS, launch.getLaunchSite()))
-                    .and(new Filter("launchOutcome", EQUALS, launch.getLaunchOutcome()));
-            collection = session.loadAll(Launch.class, filters);
-        } else if (clazz.equals(LaunchServiceProvider.class)) {
-            LaunchServiceProvider lsp = (LaunchServiceProvider) entity;
-            filters.add(new Filter("name", EQUALS, lsp.getName()))
-                    .and(new Filter("yearFounded", EQUALS, lsp.getYearFounded()))
-                    .and(new Filter("country", EQUALS, lsp.getCountry()));
-            collection = session.loadAll(LaunchServiceProvider.class, filters);
-        }
-        if (!collection.isEmpty()) {
-            existingEntity = collection.iterator().next();
-        }
-        return (T) existingEntity;
+    }
+
+    @Override
+    public <T extends Entity> Optional<T> findExisting(T entity) {
+        notNull(entity, "entity cannot be null");
+        return RoundTripTrace.call("findExisting[" + entity.getClass().getSimpleName() + "]",
+                () -> Optional.ofNullable(findExistingEntity(session(), entity, entity.getClass())));
+    }
+
+    private <T extends Entity> T findExistingEntity(Session session, Entity entity, Class<? extends Entity> clazz) {
+        return metrics.time("neo4j.findExistingEntity", clazz, () -> this.<T>queryExistingEntity(session, entity, clazz));
+    }
+
+    /**
+     * Looks the entity up by its natural key with the same query as
+     * {@link #resolveExistingIds}, then loads the node it resolves to.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Entity> T queryExistingEntity(Session session, Entity entity, Class<? extends Entity> clazz) {
+        if (!NaturalKeys.isKeyed(clazz)) {
+            return null;
+        }
+        Map<String, Object> keys = ImmutableMap.of("keys", Collections.singletonList(NaturalKeys.parametersOf(entity, 0)));
+        for (Map<String, Object> row : session.query(NaturalKeys.lookup(clazz), keys).queryResults()) {
+            return (T) session.load(clazz, ((Number) row.get("id")).longValue());
+        }
+        return null;
     }
 
     @Override
     public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
-        return session.loadAll(clazz);
+        return loadAll(clazz, depth);
     }
 
-    public <T extends Entity> void delete(T entity) {
-        //Attempt to find the entity, if it does not exist, throw exception
-        Class clazz = entity.getClass();
-        if (this.findExistingEntity(entity, clazz) == null){
-            throw new IllegalArgumentException("Entity does not exist in the Database");
-        } else {
-            session.delete(entity);
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, int depth) {
+        isTrue(depth >= 0, "depth cannot be negative");
+        return RoundTripTrace.call("loadAll[" + clazz.getSimpleName() + "]", () -> session().loadAll(clazz, depth));
+    }
+
+    /**
+     * Streams entities in pages of {@link #setPageSize(int) page size} entities, reading
+     * the highest node id of the class with one label scan and then seeking each page by
+     * id. Each page and the neighbours loaded with it are detached from the session once
+     * the stream has moved past them, and the page in use when the stream is closed;
+     * entities the session mapped before the stream started stay attached.
+     */
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        PagedIterator<T> pages = new PagedIterator<>(session(), clazz, pageSize, depth);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    pages.detachPage();
+                    if (clearAfterScans && null == units.get()) {
+                        clearSession();
+                    }
+                });
+    }
+
+    /**
+     * Streams views in pages of {@link #setPageSize(int) page size} nodes, each read
+     * with a single query returning only the projected properties, so no entity is
+     * mapped or kept in the session.
+     */
+    @Override
+    public Stream<EntityView> project(Projection projection) {
+        notNull(projection, "projection cannot be null");
+        Iterator<EntityView> pages = new ProjectionIterator(session(), projection, pageSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Sets how many relationships away related entities are loaded by
+     * {@link #load(Class, Long)}, {@link #loadAll(Class)} and {@link #stream(Class)};
+     * 1 by default, so a launch comes with its rocket and provider.
+     */
+    public void setDepth(int depth) {
+        isTrue(depth >= 0, "depth cannot be negative");
+        this.depth = depth;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Clears the shared session before a call once it has served the given number of
+     * calls since it was last cleared; 0, the default, never clears it on that account.
+     * A DAO created over a session factory opens a session per call instead.
+     */
+    public void setClearEvery(int operations) {
+        isTrue(operations >= 0, "operations cannot be negative");
+        this.clearEvery = operations;
+    }
+
+    /**
+     * Clears the shared session before a call once it maps more than the given number
+     * of entities; 0, the default, never clears it on that account.
+     */
+    public void setMaxMappedEntities(int entities) {
+        isTrue(entities >= 0, "entities cannot be negative");
+        this.maxMappedEntities = entities;
+    }
+
+    /**
+     * Clears the shared session when a {@link #stream(Class) stream} is closed, so a
+     * scan leaves nothing behind.
+     */
+    public void setClearAfterScans(boolean clearAfterScans) {
+        this.clearAfterScans = clearAfterScans;
+    }
+
+    /**
+     * Returns the number of entities the shared session maps, or -1 when there is no
+     * shared session or the OGM does not allow counting them.
+     */
+    public int getMappedEntities() {
+        return null == untracedSession ? MappedEntities.UNKNOWN : MappedEntities.count(untracedSession);
+    }
+
+    /**
+     * Detaches every entity from the shared session, recording it as
+     * {@code neo4j.clearSession} with the number of entities it held. Entities loaded
+     * before are still usable, and saving them updates their nodes. Does nothing while
+     * a unit of work is open on this thread, or when there is no shared session.
+     */
+    public void clearSession() {
+        if (null == sharedSession || null != units.get()) {
+            return;
+        }
+        int entities = getMappedEntities();
+        long start = System.nanoTime();
+        sharedSession.clear();
+        metrics.operation("neo4j.clearSession").record(System.nanoTime() - start, Math.max(0, entities));
+        operationsSinceClear = 0;
+    }
+
+    public void setPageSize(int pageSize) {
+        isTrue(pageSize > 0, "pageSize must be positive");
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Sets how many locks the natural keys of concurrent writes are spread over; writes
+     * of different keys only wait for each other when their keys share a lock. Set it
+     * before the DAO is shared between threads.
+     */
+    public void setLockStripes(int stripes) {
+        isTrue(stripes > 0, "stripes must be positive");
+        this.keyLocks = new KeyLocks(stripes);
+    }
+
+    /**
+     * Sets how long a write in a unit of work waits for a natural-key lock before
+     * failing; 10 seconds by default.
+     */
+    public void setLockTimeout(long timeout, TimeUnit unit) {
+        isTrue(timeout >= 0, "timeout cannot be negative");
+        notNull(unit, "unit cannot be null");
+        this.lockTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    public void setBatchSize(int batchSize) {
+        isTrue(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets where the natural-key lookups are recorded, as
+     * {@code neo4j.findExistingEntity} and {@code neo4j.resolveExistingIds}, and the
+     * session clears as {@code neo4j.clearSession}, with the entities cleared as rows.
+     * A DAO over a shared session also adds the {@link #getMappedEntities() mapped
+     * entities} as the gauge {@code neo4j.mappedEntities}.
+     */
+    public void setMetrics(Metrics metrics) {
+        notNull(metrics, "metrics cannot be null");
+        this.metrics = metrics;
+        addGauges();
+    }
+
+    private void addGauges() {
+        if (null != sharedSession) {
+            metrics.gauge("neo4j.mappedEntities", this::getMappedEntities);
         }
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Optional<LaunchQueries> launchQueries() {
+        return Optional.of(launchQueries);
+    }
+
+    public <T extends Entity> void delete(T entity) {
+        RoundTripTrace.call("delete[" + entity.getClass().getSimpleName() + "]", () -> {
+            //Attempt to find the entity, if it does not exist, throw exception
+            Class<? extends Entity> clazz = entity.getClass();
+            Session session = session();
+            if (this.findExistingEntity(session, entity, clazz) == null){
+                throw new IllegalArgumentException("Entity does not exist in the Database");
+            } else {
+                session.delete(entity);
+            }
+            return null;
+        });
 
     }
 }
\ No newline at end of file
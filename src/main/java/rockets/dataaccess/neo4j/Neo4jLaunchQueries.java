@@ -0,0 +1,142 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.ImmutableMap;
+import org.neo4j.ogm.session.Session;
+import rockets.dataaccess.LaunchQueries;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * Runs the miner's grouping, counting, summing, filtering and top-k selection in
+ * Neo4j with parameterized Cypher, so only the ids of the k answers cross the session;
+ * the answers are then loaded at the DAO's usual depth.
+ * <p>
+ * The OGM stores launch dates as ISO strings, so year filters are string ranges, and
+ * prices as strings, so they are ranked with {@code toFloat}. Ties are ranked by node
+ * id, i.e. by creation order.
+ */
+public class Neo4jLaunchQueries implements LaunchQueries {
+    private static final String MOST_LAUNCHED_ROCKETS =
+            "MATCH (l:Launch)-[:LAUNCH_VEHICLE]->(r:Rocket) " +
+            "WITH r, count(l) AS launches " +
+            "RETURN id(r) AS id ORDER BY launches DESC, id ASC LIMIT $k";
+
+    private static final String PROVIDERS_BY_OUTCOME_RATIO =
+            "MATCH (l:Launch)-[:LAUNCH_SERVICE_PROVIDER]->(p:LaunchServiceProvider) " +
+            "WITH p, count(l) AS total, sum(CASE WHEN l.launchOutcome = $outcome THEN 1 ELSE 0 END) AS matching " +
+            "WHERE matching > 0 " +
+            "RETURN id(p) AS id ORDER BY toFloat(matching) / total DESC, id ASC LIMIT $k";
+
+    private static final String MOST_RECENT_LAUNCHES =
+            "MATCH (l:Launch) WHERE exists(l.launchDate) " +
+            "RETURN id(l) AS id ORDER BY l.launchDate DESC, id ASC LIMIT $k";
+
+    private static final String MOST_EXPENSIVE_LAUNCHES =
+            "MATCH (l:Launch) WHERE exists(l.price) " +
+            "RETURN id(l) AS id ORDER BY toFloat(l.price) DESC, id ASC LIMIT $k";
+
+    private static final String DOMINANT_COUNTRY =
+            "MATCH (l:Launch {orbit: $orbit})-[:LAUNCH_VEHICLE]->(:Rocket)-[:MANUFACTURER]->(m:LaunchServiceProvider) " +
+            "WITH m.country AS country, count(l) AS launches, min(id(l)) AS first " +
+            "RETURN country ORDER BY launches DESC, first ASC LIMIT 1";
+
+    private static final String HIGHEST_REVENUE_PROVIDERS =
+            "MATCH (l:Launch)-[:LAUNCH_SERVICE_PROVIDER]->(p:LaunchServiceProvider) " +
+            "WHERE l.launchDate >= $from AND l.launchDate < $to AND exists(l.price) " +
+            "WITH p, sum(toFloat(l.price)) AS revenue " +
+            "RETURN id(p) AS id ORDER BY revenue DESC, id ASC LIMIT $k";
+
+    private final Supplier<Session> sessions;
+
+    private final int depth;
+
+    public Neo4jLaunchQueries(Session session, int depth) {
+        this(() -> session, depth);
+    }
+
+    /**
+     * Runs each query on a session from the supplier, which may hand out a new session
+     * per query.
+     */
+    public Neo4jLaunchQueries(Supplier<Session> sessions, int depth) {
+        this.sessions = sessions;
+        this.depth = depth;
+    }
+
+    @Override
+    public List<Rocket> mostLaunchedRockets(int k) {
+        return loadInOrder(Rocket.class, MOST_LAUNCHED_ROCKETS, ImmutableMap.of("k", limit(k)));
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        return providersByOutcomeRatio(Launch.LaunchOutcome.SUCCESSFUL, k);
+    }
+
+    @Override
+    public List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k) {
+        return providersByOutcomeRatio(Launch.LaunchOutcome.FAILED, k);
+    }
+
+    private List<LaunchServiceProvider> providersByOutcomeRatio(Launch.LaunchOutcome outcome, int k) {
+        Map<String, Object> parameters = ImmutableMap.of("outcome", outcome.name(), "k", limit(k));
+        return loadInOrder(LaunchServiceProvider.class, PROVIDERS_BY_OUTCOME_RATIO, parameters);
+    }
+
+    @Override
+    public List<Launch> mostRecentLaunches(int k) {
+        return loadInOrder(Launch.class, MOST_RECENT_LAUNCHES, ImmutableMap.of("k", limit(k)));
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k) {
+        return loadInOrder(Launch.class, MOST_EXPENSIVE_LAUNCHES, ImmutableMap.of("k", limit(k)));
+    }
+
+    @Override
+    public String dominantCountry(String orbit) {
+        if (null == orbit) {
+            return "";
+        }
+        Iterator<Map<String, Object>> rows = sessions.get().query(DOMINANT_COUNTRY, ImmutableMap.of("orbit", orbit))
+                .queryResults().iterator();
+        return rows.hasNext() ? (String) rows.next().get("country") : "";
+    }
+
+    @Override
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        Map<String, Object> parameters = ImmutableMap.of(
+                "from", LocalDate.of(year, 1, 1).toString(),
+                "to", LocalDate.of(year + 1, 1, 1).toString(),
+                "k", limit(k));
+        return loadInOrder(LaunchServiceProvider.class, HIGHEST_REVENUE_PROVIDERS, parameters);
+    }
+
+    private static long limit(int k) {
+        isTrue(k >= 0, "k cannot be negative: %d", k);
+        return k;
+    }
+
+    /**
+     * Runs a query returning ids, then loads their entities in order on the same session.
+     */
+    private <T extends Entity> List<T> loadInOrder(Class<T> clazz, String cypher, Map<String, Object> parameters) {
+        Session session = sessions.get();
+        List<Long> ids = new ArrayList<>();
+        for (Map<String, Object> row : session.query(cypher, parameters).queryResults()) {
+            ids.add(((Number) row.get("id")).longValue());
+        }
+        return OrderedLoader.loadInOrder(session, clazz, ids, depth);
+    }
+}
@@ -0,0 +1,143 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.Lists;
+import org.neo4j.ogm.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates the constraints and indexes backing {@link Neo4jDAO}'s natural-key lookups
+ * and the ordered miner queries. Bootstrapping is idempotent: existing indexes are left
+ * alone, so it can run every time a DAO is created.
+ * <p>
+ * A launch's natural key also includes its launch vehicle, which is a relationship; its
+ * index covers the launch's own properties and the vehicle is matched from there.
+ * Launch prices are stored as strings and ordered by {@code toFloat(l.price)}, which
+ * no index serves, so they have none; graphs bootstrapped with one have it dropped.
+ */
+public class Neo4jSchema {
+    private static final Logger logger = LoggerFactory.getLogger(Neo4jSchema.class);
+
+    private static final List<SchemaIndex> INDEXES = Collections.unmodifiableList(Arrays.asList(
+            SchemaIndex.unique("User", "email"),
+            SchemaIndex.of("Rocket", "name", "country"),
+            SchemaIndex.of("LaunchServiceProvider", "name", "yearFounded", "country"),
+            SchemaIndex.of("Launch", "launchDate", "launchSite", "launchOutcome"),
+            SchemaIndex.of("Launch", "launchDate")));
+
+    private static final List<SchemaIndex> DROPPED = Collections.singletonList(
+            SchemaIndex.of("Launch", "price"));
+
+    private final Session session;
+
+    public Neo4jSchema(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Creates the missing constraints and indexes and drops the obsolete ones, then
+     * logs and returns the report of every index in the graph.
+     */
+    public List<String> bootstrap() {
+        Set<String> existing = new HashSet<>();
+        for (Map<String, Object> row : indexRows()) {
+            existing.add(key(row));
+        }
+        for (SchemaIndex index : INDEXES) {
+            if (existing.contains(index.key())) {
+                continue;
+            }
+            try {
+                session.query(index.cypher(), Collections.emptyMap());
+                logger.info("Created {}", index.cypher());
+            } catch (RuntimeException e) {
+                logger.warn("Could not create {}: {}", index.cypher(), e.getMessage());
+            }
+        }
+        for (SchemaIndex index : DROPPED) {
+            if (!existing.contains(index.key())) {
+                continue;
+            }
+            try {
+                session.query(index.dropCypher(), Collections.emptyMap());
+                logger.info("Dropped {}", index.dropCypher());
+            } catch (RuntimeException e) {
+                logger.warn("Could not drop {}: {}", index.dropCypher(), e.getMessage());
+            }
+        }
+        List<String> report = report();
+        for (String line : report) {
+            logger.info("Index {}", line);
+        }
+        return report;
+    }
+
+    /**
+     * Returns one line per index in the graph, with its type and state.
+     */
+    public List<String> report() {
+        List<String> report = new ArrayList<>();
+        for (Map<String, Object> row : indexRows()) {
+            report.add(String.format("%s %s %s", row.get("description"), row.get("type"), row.get("state")));
+        }
+        Collections.sort(report);
+        return report;
+    }
+
+    private Iterable<Map<String, Object>> indexRows() {
+        return session.query("CALL db.indexes()", Collections.emptyMap()).queryResults();
+    }
+
+    private static String key(Map<String, Object> row) {
+        Object properties = row.get("properties");
+        List<Object> names = properties instanceof Object[]
+                ? Arrays.asList((Object[]) properties)
+                : Lists.newArrayList((Iterable<?>) properties);
+        return row.get("label") + names.toString();
+    }
+
+    private static final class SchemaIndex {
+        private final String label;
+
+        private final List<String> properties;
+
+        private final boolean unique;
+
+        private SchemaIndex(String label, List<String> properties, boolean unique) {
+            this.label = label;
+            this.properties = properties;
+            this.unique = unique;
+        }
+
+        static SchemaIndex of(String label, String... properties) {
+            return new SchemaIndex(label, Arrays.asList(properties), false);
+        }
+
+        static SchemaIndex unique(String label, String property) {
+            return new SchemaIndex(label, Collections.singletonList(property), true);
+        }
+
+        String key() {
+            return label + properties.toString();
+        }
+
+        String cypher() {
+            if (unique) {
+                return String.format("CREATE CONSTRAINT ON (n:%s) ASSERT n.%s IS UNIQUE", label, properties.get(0));
+            }
+            return String.format("CREATE INDEX ON :%s(%s)", label, String.join(", ", properties));
+        }
+
+        String dropCypher() {
+            return String.format("DROP INDEX ON :%s(%s)", label, String.join(", ", properties));
+        }
+    }
+}
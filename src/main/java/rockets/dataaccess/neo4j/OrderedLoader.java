@@ -0,0 +1,40 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.session.Session;
+import rockets.model.Entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class OrderedLoader {
+    private OrderedLoader() {
+    }
+
+    /**
+     * Loads the entities with the given ids in one query and returns them in the
+     * order of the ids.
+     */
+    static <T extends Entity> List<T> loadInOrder(Session session, Class<T> clazz, List<Long> ids, int depth) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Collection<T> loaded = session.loadAll(clazz, ids, depth);
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : loaded) {
+            byId.put(entity.getId(), entity);
+        }
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = byId.get(id);
+            if (null == entity) {
+                // loadAll by ids drops entities equal to one already loaded
+                entity = session.load(clazz, id, depth);
+            }
+            result.add(entity);
+        }
+        return result;
+    }
+}
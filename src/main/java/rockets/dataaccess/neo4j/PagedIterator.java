@@ -0,0 +1,140 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.session.Session;
+import rockets.model.Entity;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Iterates over every node of a class in pages of ids listed by {@link IdPages}, so the
+ * label is scanned once per iteration and each page is an id seek. Each page, with the
+ * neighbours loaded along with it, is detached from the session when the next is
+ * fetched, the last one once it is used up, and a page left partly read by
+ * {@link #detachPage()}; entities the session mapped before the iteration started stay
+ * attached.
+ */
+class PagedIterator<T extends Entity> implements Iterator<T> {
+    private static final Map<Class<?>, List<Field>> LINKS = new ConcurrentHashMap<>();
+
+    private final Session session;
+
+    private final Class<T> clazz;
+
+    private final IdPages pageIds;
+
+    private final int depth;
+
+    private final Set<Long> mappedBefore;
+
+    private List<T> page = Collections.emptyList();
+
+    private int next;
+
+    private boolean exhausted;
+
+    PagedIterator(Session session, Class<T> clazz, int pageSize, int depth) {
+        this.session = session;
+        this.clazz = clazz;
+        this.pageIds = new IdPages(session, clazz.getSimpleName(), pageSize);
+        this.depth = depth;
+        this.mappedBefore = MappedEntities.ids(session);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next < page.size()) {
+            return true;
+        }
+        if (!exhausted) {
+            fetchNextPage();
+        }
+        if (next < page.size()) {
+            return true;
+        }
+        detachPage();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(next++);
+    }
+
+    /**
+     * Detaches the current page, so a scan stopped early leaves the session as it found it.
+     */
+    void detachPage() {
+        Set<Long> loaded = new HashSet<>();
+        for (T entity : page) {
+            collect(entity, depth, loaded);
+        }
+        loaded.removeAll(mappedBefore);
+        for (Long id : loaded) {
+            session.detachNodeEntity(id);
+        }
+        page = Collections.emptyList();
+        next = 0;
+    }
+
+    private void fetchNextPage() {
+        detachPage();
+        List<Long> ids = pageIds.next();
+        exhausted = ids.isEmpty();
+        page = OrderedLoader.loadInOrder(session, clazz, ids, depth);
+        next = 0;
+    }
+
+    /**
+     * Adds the ids of the entity and of the entities it reaches within the given number
+     * of relationships, which is how far the page was loaded.
+     */
+    private static void collect(Object entity, int hops, Set<Long> ids) {
+        if (!(entity instanceof Entity) || null == ((Entity) entity).getId() || !ids.add(((Entity) entity).getId())
+                || hops == 0) {
+            return;
+        }
+        for (Field field : LINKS.computeIfAbsent(entity.getClass(), PagedIterator::linksOf)) {
+            Object value;
+            try {
+                value = field.get(entity);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (value instanceof Collection) {
+                for (Object element : (Collection<?>) value) {
+                    collect(element, hops - 1, ids);
+                }
+            } else {
+                collect(value, hops - 1, ids);
+            }
+        }
+    }
+
+    private static List<Field> linksOf(Class<?> clazz) {
+        List<Field> links = new ArrayList<>();
+        for (Class<?> c = clazz; null != c; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())
+                        && (Entity.class.isAssignableFrom(field.getType()) || Collection.class.isAssignableFrom(field.getType()))) {
+                    field.setAccessible(true);
+                    links.add(field);
+                }
+            }
+        }
+        return links;
+    }
+}
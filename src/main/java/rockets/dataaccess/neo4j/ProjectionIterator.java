@@ -0,0 +1,130 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.ImmutableMap;
+import org.neo4j.ogm.session.Session;
+import rockets.dataaccess.EntityView;
+import rockets.dataaccess.Projection;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+/**
+ * Iterates over views of every node of a class, reading only the projected properties
+ * with one query per page and following each projected relationship once per page,
+ * rather than mapping the nodes and their neighbours to entities. Pages are listed by
+ * {@link IdPages} like those of {@link PagedIterator}, so each page query seeks its
+ * nodes by id.
+ */
+class ProjectionIterator implements Iterator<EntityView> {
+    private final Session session;
+
+    private final Projection projection;
+
+    private final String query;
+
+    private final Map<String, String> columns = new LinkedHashMap<>();
+
+    private final IdPages pageIds;
+
+    private List<EntityView> page = Collections.emptyList();
+
+    private int next;
+
+    private boolean exhausted;
+
+    ProjectionIterator(Session session, Projection projection, int pageSize) {
+        this.session = session;
+        this.projection = projection;
+        this.pageIds = new IdPages(session, projection.getEntityClass().getSimpleName(), pageSize);
+        this.query = queryOf(projection, columns);
+    }
+
+    /**
+     * Builds the page query, e.g. for {@code launchDate} and
+     * {@code launchVehicle.manufacturer.country} of launches:
+     * <pre>
+     * MATCH (n) WHERE id(n) IN $ids
+     * OPTIONAL MATCH (n)-[:`LAUNCH_VEHICLE`]->(x) WITH n, head(collect(x)) AS r0
+     * OPTIONAL MATCH (r0)-[:`MANUFACTURER`]->(x) WITH n, r0, head(collect(x)) AS r1
+     * RETURN id(n) AS id, n.`launchDate` AS p0, r1.`country` AS p1 ORDER BY id
+     * </pre>
+     * Paths sharing a relationship prefix share its match.
+     */
+    static String queryOf(Projection projection, Map<String, String> columns) {
+        StringBuilder query = new StringBuilder("MATCH (n) WHERE id(n) IN $ids");
+        Map<String, String> hops = new HashMap<>();
+        StringJoiner carried = new StringJoiner(", ");
+        carried.add("n");
+        StringJoiner returned = new StringJoiner(", ", " RETURN id(n) AS id, ", " ORDER BY id");
+        for (String path : projection.getPaths()) {
+            List<Field> fields = projection.fieldsOf(path);
+            String owner = "n";
+            StringBuilder prefix = new StringBuilder();
+            for (Field field : fields) {
+                if (!Projection.isRelationship(field)) {
+                    break;
+                }
+                prefix.append('.').append(field.getName());
+                String hop = hops.get(prefix.toString());
+                if (null == hop) {
+                    hop = "r" + hops.size();
+                    hops.put(prefix.toString(), hop);
+                    query.append(String.format(" OPTIONAL MATCH (%s)-[:`%s`]->(x) WITH %s, head(collect(x)) AS %s",
+                            owner, Projection.graphNameOf(field), carried, hop));
+                    carried.add(hop);
+                }
+                owner = hop;
+            }
+            String column = "p" + columns.size();
+            columns.put(path, column);
+            Field last = fields.get(fields.size() - 1);
+            returned.add(Projection.isRelationship(last)
+                    ? String.format("id(%s) AS %s", owner, column)
+                    : String.format("%s.`%s` AS %s", owner, Projection.graphNameOf(last), column));
+        }
+        return query.append(returned).toString();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next < page.size()) {
+            return true;
+        }
+        if (!exhausted) {
+            fetchNextPage();
+        }
+        return next < page.size();
+    }
+
+    @Override
+    public EntityView next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(next++);
+    }
+
+    private void fetchNextPage() {
+        List<Long> ids = pageIds.next();
+        exhausted = ids.isEmpty();
+        List<EntityView> views = new ArrayList<>(ids.size());
+        Map<String, Object> values = new HashMap<>();
+        if (!exhausted) {
+            for (Map<String, Object> row : session.query(query, ImmutableMap.of("ids", ids)).queryResults()) {
+                values.clear();
+                columns.forEach((path, column) -> values.put(path, row.get(column)));
+                views.add(projection.viewOf(((Number) row.get("id")).longValue(), values));
+            }
+        }
+        page = views;
+        next = 0;
+    }
+}
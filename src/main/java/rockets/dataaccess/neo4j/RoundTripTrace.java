@@ -0,0 +1,195 @@
+package rockets.dataaccess.neo4j;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * Counts the database round trips of the {@link Neo4jDAO} calls made on the current
+ * thread while the trace is open, for one request or unit of work:
+ * <pre>
+ * try (RoundTripTrace trace = RoundTripTrace.start()) {
+ *     importer.run();
+ *     logger.info("{}", trace);
+ * }
+ * </pre>
+ * Each OGM session call that reaches the database (load, query, save, delete, count)
+ * is one statement. Statements are summed per DAO call, with the rows they returned,
+ * and counted by shape: the session method, entity class, filtered properties or
+ * Cypher text, but not the values. A read whose shape runs at least
+ * {@link #DEFAULT_REPEAT_THRESHOLD} times, typically a lookup inside a loop over
+ * entities that one batched call could replace, is reported by
+ * {@link #getRepeatedLookups()} and logged as a warning when the trace closes.
+ * <p>
+ * Traces nest: closing one resumes the trace it was started in. Not thread-safe; a
+ * trace only sees its own thread.
+ */
+public final class RoundTripTrace implements AutoCloseable {
+    public static final int DEFAULT_REPEAT_THRESHOLD = 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(RoundTripTrace.class);
+
+    private static final ThreadLocal<RoundTripTrace> CURRENT = new ThreadLocal<>();
+
+    private final RoundTripTrace outer;
+
+    private final int repeatThreshold;
+
+    private final List<Call> calls = new ArrayList<>();
+
+    private final Map<String, Integer> reads = new LinkedHashMap<>();
+
+    private Call current;
+
+    private long statements;
+
+    private long rows;
+
+    private boolean closed;
+
+    private RoundTripTrace(RoundTripTrace outer, int repeatThreshold) {
+        this.outer = outer;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public static RoundTripTrace start() {
+        return start(DEFAULT_REPEAT_THRESHOLD);
+    }
+
+    /**
+     * Starts a trace on the current thread that flags reads repeated at least the
+     * given number of times.
+     */
+    public static RoundTripTrace start(int repeatThreshold) {
+        isTrue(repeatThreshold > 1, "repeatThreshold must be greater than 1");
+        RoundTripTrace trace = new RoundTripTrace(CURRENT.get(), repeatThreshold);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static boolean active() {
+        return null != CURRENT.get();
+    }
+
+    /**
+     * Runs a DAO call, attributing the statements it issues to it when a trace is open.
+     */
+    static <T> T call(String operation, Supplier<T> call) {
+        RoundTripTrace trace = CURRENT.get();
+        if (null == trace || null != trace.current) {
+            return call.get();
+        }
+        trace.current = new Call(operation);
+        try {
+            return call.get();
+        } finally {
+            trace.calls.add(trace.current);
+            trace.current = null;
+        }
+    }
+
+    static void statement(String shape, boolean read, long rows) {
+        RoundTripTrace trace = CURRENT.get();
+        if (null == trace) {
+            return;
+        }
+        trace.statements++;
+        trace.rows += rows;
+        if (null != trace.current) {
+            trace.current.statements++;
+            trace.current.rows += rows;
+        }
+        if (read) {
+            trace.reads.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the DAO calls traced so far, in order.
+     */
+    public List<Call> getCalls() {
+        return Collections.unmodifiableList(calls);
+    }
+
+    /**
+     * Returns how many times each read shape ran, for those that ran at least the
+     * repeat threshold.
+     */
+    public Map<String, Integer> getRepeatedLookups() {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        reads.forEach((shape, count) -> {
+            if (count >= repeatThreshold) {
+                repeated.put(shape, count);
+            }
+        });
+        return repeated;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (null == outer) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+        getRepeatedLookups().forEach((shape, count) ->
+                logger.warn("{} ran {} times in one trace; consider batching it", shape, count));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d statements, %d rows in %d DAO calls", statements, rows, calls.size());
+    }
+
+    /**
+     * The statements one DAO call issued.
+     */
+    public static final class Call {
+        private final String operation;
+
+        private long statements;
+
+        private long rows;
+
+        private Call(String operation) {
+            this.operation = operation;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d statements, %d rows", operation, statements, rows);
+        }
+    }
+}
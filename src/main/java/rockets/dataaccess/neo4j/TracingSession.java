@@ -0,0 +1,149 @@
+package rockets.dataaccess.neo4j;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.neo4j.ogm.cypher.Filter;
+import org.neo4j.ogm.model.QueryStatistics;
+import org.neo4j.ogm.model.Result;
+import org.neo4j.ogm.session.Session;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Wraps a session so that each call reaching the database is reported to the
+ * {@link RoundTripTrace} open on the calling thread, if any. Query results are read
+ * eagerly while a trace is open, to count their rows.
+ */
+final class TracingSession {
+    private static final Set<String> READS = ImmutableSet.of(
+            "load", "loadAll", "query", "queryForObject", "count", "countEntitiesOfType");
+
+    private static final Set<String> WRITES = ImmutableSet.of(
+            "save", "delete", "deleteAll", "purgeDatabase");
+
+    private TracingSession() {
+    }
+
+    static Session wrap(Session session) {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                new Tracer(session));
+    }
+
+    /**
+     * Returns the session a {@link #wrap(Session) wrapped} session calls, or the given
+     * session if it is not wrapped.
+     */
+    static Session unwrap(Session session) {
+        if (Proxy.isProxyClass(session.getClass()) && Proxy.getInvocationHandler(session) instanceof Tracer) {
+            return ((Tracer) Proxy.getInvocationHandler(session)).session;
+        }
+        return session;
+    }
+
+    private static Object traced(Method method, Object[] args, boolean read, Object result) {
+        long rows;
+        if (result instanceof Result) {
+            List<Map<String, Object>> list = Lists.newArrayList((Result) result);
+            rows = list.size();
+            result = new ListResult(list, ((Result) result).queryStatistics());
+        } else if (result instanceof Collection) {
+            rows = ((Collection<?>) result).size();
+        } else if (result instanceof Iterable) {
+            List<?> list = Lists.newArrayList((Iterable<?>) result);
+            rows = list.size();
+            result = list;
+        } else {
+            rows = null == result || !read ? 0 : 1;
+        }
+        RoundTripTrace.statement(shapeOf(method, args), read, rows);
+        return result;
+    }
+
+    /**
+     * Describes a call without its values: entity classes, filtered properties and
+     * Cypher text are kept; ids, parameters and depths are not.
+     */
+    private static String shapeOf(Method method, Object[] args) {
+        StringJoiner shape = new StringJoiner(", ", method.getName() + "(", ")");
+        for (Object arg : null == args ? new Object[0] : args) {
+            if (arg instanceof Class) {
+                shape.add(((Class<?>) arg).getSimpleName());
+            } else if (arg instanceof String) {
+                shape.add((String) arg);
+            } else if (arg instanceof Filter) {
+                shape.add(((Filter) arg).getPropertyName());
+            } else if (arg instanceof Iterable && !(arg instanceof Collection)) {
+                StringJoiner properties = new StringJoiner(", ", "[", "]");
+                for (Object filter : (Iterable<?>) arg) {
+                    if (filter instanceof Filter) {
+                        properties.add(((Filter) filter).getPropertyName());
+                    }
+                }
+                shape.add(properties.toString());
+            } else if (arg instanceof Collection) {
+                shape.add("collection");
+            } else if (null != arg && arg.getClass().getPackage() == rockets.model.Entity.class.getPackage()) {
+                shape.add(arg.getClass().getSimpleName());
+            }
+        }
+        return shape.toString();
+    }
+
+    private static final class Tracer implements InvocationHandler {
+        private final Session session;
+
+        private Tracer(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(session, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            boolean read = READS.contains(method.getName());
+            if (RoundTripTrace.active() && (read || WRITES.contains(method.getName()))) {
+                result = traced(method, args, read, result);
+            }
+            return result;
+        }
+    }
+
+    private static final class ListResult implements Result {
+        private final List<Map<String, Object>> rows;
+
+        private final QueryStatistics statistics;
+
+        private ListResult(List<Map<String, Object>> rows, QueryStatistics statistics) {
+            this.rows = rows;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Iterable<Map<String, Object>> queryResults() {
+            return rows;
+        }
+
+        @Override
+        public QueryStatistics queryStatistics() {
+            return statistics;
+        }
+
+        @Override
+        public Iterator<Map<String, Object>> iterator() {
+            return rows.iterator();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package rockets.dataaccess.neo4j;
+
+import org.neo4j.ogm.session.Session;
+import org.neo4j.ogm.transaction.Transaction;
+import rockets.model.Entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import static org.apache.commons.lang3.Validate.validState;
+
+/**
+ * A session and transaction that the {@link Neo4jDAO} calls of one thread share until
+ * it is closed, opened by {@link Neo4jDAO#openUnitOfWork()}:
+ * <pre>
+ * try (UnitOfWork unit = dao.openUnitOfWork()) {
+ *     dao.createOrUpdate(rocket);
+ *     dao.createOrUpdate(launch);
+ *     unit.commit();
+ * }
+ * </pre>
+ * Closing a unit that was not committed rolls its writes back, and takes back the ids
+ * its writes gave to entities that had none. A unit must be closed on
+ * the thread that opened it. It holds the locks of the natural keys it wrote until it
+ * closes, so keep units short. Keys share lock stripes, so two units can each wait for
+ * a lock the other holds even when they write different keys; a write waiting longer
+ * than the DAO's {@link Neo4jDAO#setLockTimeout lock timeout} fails with an
+ * {@link IllegalStateException}, and closing its unit rolls the unit back and lets the
+ * other proceed. Callers may then retry the unit.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private final Session session;
+
+    private final Transaction transaction;
+
+    private final Runnable onClose;
+
+    private final Set<Lock> locks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final List<Entity> unidentified = new ArrayList<>();
+
+    private boolean completed;
+
+    private boolean closed;
+
+    UnitOfWork(Session session, Runnable onClose) {
+        this.session = session;
+        this.transaction = session.beginTransaction();
+        this.onClose = onClose;
+    }
+
+    Session getSession() {
+        return session;
+    }
+
+    /**
+     * Keeps the locks until the unit closes, releasing at once those it already holds.
+     */
+    void holdUntilClose(List<Lock> taken) {
+        for (Lock lock : taken) {
+            if (!locks.add(lock)) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Resets the ids of the entities to none if the unit rolls back.
+     */
+    void takeBackIdsOnRollback(Collection<Entity> entities) {
+        unidentified.addAll(entities);
+    }
+
+    public void commit() {
+        validState(!completed, "unit of work already committed or rolled back");
+        completed = true;
+        try {
+            transaction.commit();
+        } catch (RuntimeException e) {
+            takeBackIds();
+            throw e;
+        }
+        unidentified.clear();
+    }
+
+    public void rollback() {
+        validState(!completed, "unit of work already committed or rolled back");
+        completed = true;
+        rollbackAndClear();
+    }
+
+    /**
+     * Also clears the session, which would otherwise keep the nodes rolled back.
+     */
+    private void rollbackAndClear() {
+        try {
+            transaction.rollback();
+        } finally {
+            session.clear();
+            takeBackIds();
+        }
+    }
+
+    private void takeBackIds() {
+        unidentified.forEach(entity -> entity.setId(null));
+        unidentified.clear();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!completed) {
+                completed = true;
+                rollbackAndClear();
+            }
+            transaction.close();
+        } finally {
+            locks.forEach(Lock::unlock);
+            locks.clear();
+            onClose.run();
+        }
+    }
+}
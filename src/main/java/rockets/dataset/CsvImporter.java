@@ -0,0 +1,381 @@
+package rockets.dataset;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rockets.dataaccess.DAO;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notBlank;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Bulk-loads provider, rocket and launch CSV files laid out as described by
+ * {@link CsvSchema} into a {@link DAO}.
+ * <p>
+ * Each file streams through four stages, each on its own thread and connected by
+ * bounded queues, so a slow stage holds the others back instead of filling the heap:
+ * <ol>
+ * <li>parse the CSV records;</li>
+ * <li>validate them into entities with the model's own checks, rejecting bad records;</li>
+ * <li>drop records whose natural key was already seen;</li>
+ * <li>write the rest with {@link DAO#createOrUpdateAll} in batches.</li>
+ * </ol>
+ * Rows refer to providers and rockets by natural key, so providers must be imported
+ * before rockets, and both before launches. Providers and rockets are kept once written
+ * to resolve these references, so a failed import can simply be run again; launches
+ * are not retained, and their keys are only
+ * remembered over a {@link #setDedupeWindow(int) bounded window} of recent launches,
+ * leaving older duplicates to DAOs that merge on natural keys, like
+ * {@link rockets.dataaccess.neo4j.Neo4jDAO}.
+ * <p>
+ * Progress is reported to a listener, which logs it by default, every
+ * {@link #setProgressInterval(long) so many} written records and when a file is done.
+ * The DAO is only called from the writing thread. Not thread-safe.
+ */
+public class CsvImporter {
+    private static final Logger logger = LoggerFactory.getLogger(CsvImporter.class);
+
+    private static final Object END = new Object();
+
+    private final DAO dao;
+
+    private final Map<List<Object>, LaunchServiceProvider> providers = new ConcurrentHashMap<>();
+
+    private final Map<List<Object>, Rocket> rockets = new ConcurrentHashMap<>();
+
+    private int batchSize = 1000;
+
+    private int queueCapacity = 4096;
+
+    private int dedupeWindow = 1 << 20;
+
+    private long progressInterval = 100_000;
+
+    private Consumer<ImportProgress> progressListener = progress -> logger.info("{}", progress);
+
+    public CsvImporter(DAO dao) {
+        notNull(dao, "dao cannot be null");
+        this.dao = dao;
+    }
+
+    public void setBatchSize(int batchSize) {
+        isTrue(batchSize > 0, "batchSize must be positive");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the capacity of each queue between two stages.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets how many of the most recent launch keys are remembered to drop duplicates.
+     */
+    public void setDedupeWindow(int dedupeWindow) {
+        isTrue(dedupeWindow > 0, "dedupeWindow must be positive");
+        this.dedupeWindow = dedupeWindow;
+    }
+
+    public void setProgressInterval(long progressInterval) {
+        isTrue(progressInterval > 0, "progressInterval must be positive");
+        this.progressInterval = progressInterval;
+    }
+
+    public void setProgressListener(Consumer<ImportProgress> progressListener) {
+        notNull(progressListener, "progressListener cannot be null");
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Imports the three files in order; the readers are closed.
+     */
+    public List<ImportProgress> importAll(Reader providerIn, Reader rocketIn, Reader launchIn) throws IOException {
+        return Arrays.asList(importProviders(providerIn), importRockets(rocketIn), importLaunches(launchIn));
+    }
+
+    public ImportProgress importProviders(Reader in) throws IOException {
+        Set<List<Object>> seen = new HashSet<>();
+        return run("providers", CsvSchema.PROVIDERS, in, this::provider,
+                provider -> !providers.containsKey(keyOf(provider)) && seen.add(keyOf(provider)),
+                provider -> providers.putIfAbsent(keyOf(provider), provider));
+    }
+
+    public ImportProgress importRockets(Reader in) throws IOException {
+        Set<List<Object>> seen = new HashSet<>();
+        return run("rockets", CsvSchema.ROCKETS, in, this::rocket,
+                rocket -> !rockets.containsKey(keyOf(rocket)) && seen.add(keyOf(rocket)),
+                rocket -> rockets.putIfAbsent(keyOf(rocket), rocket));
+    }
+
+    public ImportProgress importLaunches(Reader in) throws IOException {
+        Set<List<Object>> recent = Collections.newSetFromMap(new RecentKeys(dedupeWindow));
+        return run("launches", CsvSchema.LAUNCHES, in, this::launch, launch -> recent.add(keyOf(launch)),
+                launch -> { });
+    }
+
+    private LaunchServiceProvider provider(CSVRecord record) {
+        String name = notBlank(record.get(CsvSchema.ProviderColumn.name), "name cannot be blank");
+        int yearFounded = Integer.parseInt(record.get(CsvSchema.ProviderColumn.yearFounded));
+        String country = notBlank(record.get(CsvSchema.ProviderColumn.country), "country cannot be blank");
+        LaunchServiceProvider provider = new LaunchServiceProvider(name, yearFounded, country);
+        isTrue(provider.checkValidYear(yearFounded), "yearFounded must be before this year: %d", yearFounded);
+        String headquarters = record.get(CsvSchema.ProviderColumn.headquarters);
+        if (!headquarters.isEmpty()) {
+            provider.setHeadquarters(headquarters);
+        }
+        return provider;
+    }
+
+    private Rocket rocket(CSVRecord record) {
+        String name = notBlank(record.get(CsvSchema.RocketColumn.name), "name cannot be blank");
+        String country = notBlank(record.get(CsvSchema.RocketColumn.country), "country cannot be blank");
+        LaunchServiceProvider manufacturer = known(providers, "manufacturer",
+                record.get(CsvSchema.RocketColumn.manufacturer),
+                Integer.parseInt(record.get(CsvSchema.RocketColumn.manufacturerYearFounded)),
+                record.get(CsvSchema.RocketColumn.manufacturerCountry));
+        return new Rocket(name, country, manufacturer);
+    }
+
+    private Launch launch(CSVRecord record) {
+        Launch launch = new Launch();
+        launch.setLaunchDate(LocalDate.parse(record.get(CsvSchema.LaunchColumn.launchDate)));
+        launch.setLaunchVehicle(known(rockets, "rocket",
+                record.get(CsvSchema.LaunchColumn.rocket), record.get(CsvSchema.LaunchColumn.rocketCountry)));
+        launch.setLaunchServiceProvider(known(providers, "provider",
+                record.get(CsvSchema.LaunchColumn.provider),
+                Integer.parseInt(record.get(CsvSchema.LaunchColumn.providerYearFounded)),
+                record.get(CsvSchema.LaunchColumn.providerCountry)));
+        launch.setLaunchSite(emptyToNull(record.get(CsvSchema.LaunchColumn.launchSite)));
+        launch.setOrbit(emptyToNull(record.get(CsvSchema.LaunchColumn.orbit)));
+        launch.setFunction(emptyToNull(record.get(CsvSchema.LaunchColumn.function)));
+        String price = record.get(CsvSchema.LaunchColumn.price);
+        if (!price.isEmpty()) {
+            launch.setPrice(new BigDecimal(price));
+        }
+        String outcome = record.get(CsvSchema.LaunchColumn.launchOutcome);
+        if (!outcome.isEmpty()) {
+            launch.setLaunchOutcome(Launch.LaunchOutcome.valueOf(outcome));
+        }
+        return launch;
+    }
+
+    private static <T> T known(Map<List<Object>, T> entities, String what, Object... key) {
+        T entity = entities.get(Arrays.asList(key));
+        isTrue(null != entity, "unknown %s %s", what, Arrays.toString(key));
+        return entity;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static List<Object> keyOf(LaunchServiceProvider provider) {
+        return Arrays.asList(provider.getName(), provider.getYearFounded(), provider.getCountry());
+    }
+
+    private static List<Object> keyOf(Rocket rocket) {
+        return Arrays.asList(rocket.getName(), rocket.getCountry());
+    }
+
+    private static List<Object> keyOf(Launch launch) {
+        return Arrays.asList(launch.getLaunchDate(), launch.getLaunchSite(), launch.getLaunchOutcome(),
+                launch.getLaunchVehicle().getName(), launch.getLaunchVehicle().getCountry());
+    }
+
+    private <T extends Entity> ImportProgress run(String file, CSVFormat format, Reader in,
+                                                  Function<CSVRecord, T> validator,
+                                                  Predicate<T> firstSeen,
+                                                  Consumer<T> stored) throws IOException {
+        Pipeline<T> pipeline = new Pipeline<>(file);
+        ExecutorService executor = Executors.newFixedThreadPool(4,
+                new ThreadFactoryBuilder().setNameFormat("csv-import-" + file + "-%d").setDaemon(true).build());
+        CompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> futures = Arrays.asList(
+                stages.submit(() -> pipeline.parse(format, in)),
+                stages.submit(() -> pipeline.validate(validator)),
+                stages.submit(() -> pipeline.dedupe(firstSeen)),
+                stages.submit(() -> pipeline.write(stored)));
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                stages.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while importing " + file);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+        ImportProgress progress = pipeline.progress();
+        progressListener.accept(progress);
+        return progress;
+    }
+
+    /**
+     * The keys of the last so many launches, for dropping repeated records.
+     */
+    private static final class RecentKeys extends LinkedHashMap<List<Object>, Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private RecentKeys(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, Boolean> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * The queues and counters of one file's import.
+     */
+    private final class Pipeline<T extends Entity> {
+        private final String file;
+
+        private final long start = System.nanoTime();
+
+        private final BlockingQueue<Object> records = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final BlockingQueue<Object> validated = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final BlockingQueue<Object> unique = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final AtomicLong read = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        private final AtomicLong duplicates = new AtomicLong();
+
+        private final AtomicLong written = new AtomicLong();
+
+        private Pipeline(String file) {
+            this.file = file;
+        }
+
+        private Void parse(CSVFormat format, Reader in) throws IOException, InterruptedException {
+            try (CSVParser parser = format.withSkipHeaderRecord().parse(in)) {
+                for (CSVRecord record : parser) {
+                    records.put(record);
+                    read.incrementAndGet();
+                }
+            } catch (IllegalStateException e) {
+                // the parser's iterator wraps read errors
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+            records.put(END);
+            return null;
+        }
+
+        private Void validate(Function<CSVRecord, T> validator) throws InterruptedException {
+            for (Object next = records.take(); next != END; next = records.take()) {
+                CSVRecord record = (CSVRecord) next;
+                try {
+                    validated.put(validator.apply(record));
+                } catch (IllegalArgumentException | NullPointerException | DateTimeException e) {
+                    rejected.incrementAndGet();
+                    logger.debug("Rejected {} record {}: {}", file, record.getRecordNumber(), e.getMessage());
+                }
+            }
+            validated.put(END);
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Void dedupe(Predicate<T> firstSeen) throws InterruptedException {
+            for (Object next = validated.take(); next != END; next = validated.take()) {
+                if (firstSeen.test((T) next)) {
+                    unique.put(next);
+                } else {
+                    duplicates.incrementAndGet();
+                }
+            }
+            unique.put(END);
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Void write(Consumer<T> stored) throws InterruptedException {
+            List<T> batch = new ArrayList<>(batchSize);
+            long reported = 0;
+            for (Object next = unique.take(); next != END; next = unique.take()) {
+                batch.add((T) next);
+                if (batch.size() == batchSize) {
+                    flush(batch, stored);
+                    if (written.get() - reported >= progressInterval) {
+                        reported = written.get();
+                        progressListener.accept(progress());
+                    }
+                }
+            }
+            flush(batch, stored);
+            return null;
+        }
+
+        private void flush(List<T> batch, Consumer<T> stored) {
+            if (!batch.isEmpty()) {
+                dao.createOrUpdateAll(batch);
+                written.addAndGet(batch.size());
+                batch.forEach(stored);
+                batch.clear();
+            }
+        }
+
+        private ImportProgress progress() {
+            return new ImportProgress(file, read.get(), rejected.get(), duplicates.get(), written.get(),
+                    System.nanoTime() - start);
+        }
+    }
+}
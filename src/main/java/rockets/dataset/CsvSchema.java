@@ -0,0 +1,33 @@
+package rockets.dataset;
+
+import org.apache.commons.csv.CSVFormat;
+
+/**
+ * Column layout of the provider, rocket and launch CSV files. Rockets and providers
+ * are referred to by their natural keys, the same ones
+ * {@link rockets.dataaccess.neo4j.Neo4jDAO} uses to find existing entities.
+ * {@link LaunchDatasetGenerator} writes these files and {@link CsvImporter} loads them.
+ */
+public final class CsvSchema {
+    public enum ProviderColumn {
+        name, yearFounded, country, headquarters
+    }
+
+    public enum RocketColumn {
+        name, country, manufacturer, manufacturerYearFounded, manufacturerCountry
+    }
+
+    public enum LaunchColumn {
+        launchDate, rocket, rocketCountry, provider, providerYearFounded, providerCountry,
+        launchSite, orbit, function, price, launchOutcome
+    }
+
+    public static final CSVFormat PROVIDERS = CSVFormat.DEFAULT.withHeader(ProviderColumn.class);
+
+    public static final CSVFormat ROCKETS = CSVFormat.DEFAULT.withHeader(RocketColumn.class);
+
+    public static final CSVFormat LAUNCHES = CSVFormat.DEFAULT.withHeader(LaunchColumn.class);
+
+    private CsvSchema() {
+    }
+}
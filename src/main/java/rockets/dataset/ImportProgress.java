@@ -0,0 +1,67 @@
+package rockets.dataset;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of how far a {@link CsvImporter} has got through one file. Every record
+ * read is eventually rejected, dropped as a duplicate or written.
+ */
+public final class ImportProgress {
+    private final String file;
+
+    private final long read;
+
+    private final long rejected;
+
+    private final long duplicates;
+
+    private final long written;
+
+    private final long elapsedNanos;
+
+    ImportProgress(String file, long read, long rejected, long duplicates, long written, long elapsedNanos) {
+        this.file = file;
+        this.read = read;
+        this.rejected = rejected;
+        this.duplicates = duplicates;
+        this.written = written;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records read per second so far.
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : read * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d read, %d rejected, %d duplicates, %d written in %.1f s (%.0f records/s)",
+                file, read, rejected, duplicates, written, elapsedNanos / 1e9, getThroughput());
+    }
+}
@@ -0,0 +1,261 @@
+package rockets.dataset;
+
+import org.apache.commons.csv.CSVPrinter;
+import rockets.dataaccess.DAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.apache.commons.lang3.Validate.inclusiveBetween;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Generates a reproducible synthetic graph of launch service providers, rockets and
+ * launches. The same seed and settings always give the same dataset.
+ * <p>
+ * Providers own rockets and rockets fly launches following Zipf-like distributions,
+ * so a few providers and rockets account for most launches, as in real history.
+ * Orbits, countries and launch functions follow fixed weighted distributions, prices
+ * are log-normal around {@link #setMedianPrice(BigDecimal) the median price} and a
+ * configurable share of launches fail.
+ * <p>
+ * Providers and rockets are kept in memory; launches are produced one at a time and
+ * never retained, so datasets of millions of launches can be streamed into a
+ * {@link DAO} or a CSV file in constant memory. Note that DAOs deduplicating on
+ * natural keys, like {@link rockets.dataaccess.neo4j.Neo4jDAO}, merge launches of the
+ * same rocket from the same site on the same day with the same outcome.
+ */
+public class LaunchDatasetGenerator {
+    private static final String[] COUNTRIES = {"USA", "Russia", "China", "Europe", "Japan", "India", "New Zealand", "Israel", "Iran"};
+    private static final double[] COUNTRY_WEIGHTS = {40, 25, 15, 8, 4, 4, 2, 1, 1};
+
+    private static final String[] ORBITS = {"LEO", "SSO", "GTO", "MEO", "HEO", "Polar", "Lunar", "Heliocentric"};
+    private static final double[] ORBIT_WEIGHTS = {45, 18, 20, 6, 4, 4, 2, 1};
+
+    private static final String[] FUNCTIONS = {"Commercial", "Government", "Military", "Scientific", "Test flight"};
+    private static final double[] FUNCTION_WEIGHTS = {45, 20, 15, 15, 5};
+
+    private static final int SITES_PER_COUNTRY = 4;
+
+    private final long seed;
+
+    private final long launches;
+
+    private int providers = 50;
+
+    private int rockets = 400;
+
+    private double skew = 1.1;
+
+    private double failureRate = 0.08;
+
+    private BigDecimal medianPrice = BigDecimal.valueOf(60_000_000);
+
+    private double priceSpread = 0.6;
+
+    private LocalDate firstLaunchDate = LocalDate.of(1957, 10, 4);
+
+    private LocalDate lastLaunchDate = LocalDate.of(2019, 12, 31);
+
+    /**
+     * @param seed     the seed of every random choice.
+     * @param launches the number of launches to generate.
+     */
+    public LaunchDatasetGenerator(long seed, long launches) {
+        isTrue(launches >= 0, "launches cannot be negative");
+        this.seed = seed;
+        this.launches = launches;
+    }
+
+    public long getLaunches() {
+        return launches;
+    }
+
+    public void setProviders(int providers) {
+        isTrue(providers > 0, "providers must be positive");
+        this.providers = providers;
+    }
+
+    public void setRockets(int rockets) {
+        isTrue(rockets > 0, "rockets must be positive");
+        this.rockets = rockets;
+    }
+
+    /**
+     * Sets the Zipf exponent of launches per rocket and rockets per provider.
+     * 0 is uniform; the larger, the more launches go to the most popular ones.
+     */
+    public void setSkew(double skew) {
+        isTrue(skew >= 0, "skew cannot be negative");
+        this.skew = skew;
+    }
+
+    public void setFailureRate(double failureRate) {
+        inclusiveBetween(0.0, 1.0, failureRate, "failureRate must be between 0 and 1");
+        this.failureRate = failureRate;
+    }
+
+    public void setMedianPrice(BigDecimal medianPrice) {
+        notNull(medianPrice, "medianPrice cannot be null");
+        isTrue(medianPrice.signum() > 0, "medianPrice must be positive");
+        this.medianPrice = medianPrice;
+    }
+
+    /**
+     * Sets the standard deviation of the logarithm of prices; 0 prices every launch
+     * at the median.
+     */
+    public void setPriceSpread(double priceSpread) {
+        isTrue(priceSpread >= 0, "priceSpread cannot be negative");
+        this.priceSpread = priceSpread;
+    }
+
+    public void setLaunchDates(LocalDate first, LocalDate last) {
+        notNull(first, "first launch date cannot be null");
+        notNull(last, "last launch date cannot be null");
+        isTrue(!last.isBefore(first), "last launch date cannot be before the first");
+        this.firstLaunchDate = first;
+        this.lastLaunchDate = last;
+    }
+
+    /**
+     * Generates the dataset, handing providers, then rockets, then launches to the
+     * given consumers in a deterministic order.
+     */
+    public void generate(Consumer<? super LaunchServiceProvider> providerConsumer,
+                         Consumer<? super Rocket> rocketConsumer,
+                         Consumer<? super Launch> launchConsumer) {
+        Random random = new Random(seed);
+
+        List<LaunchServiceProvider> providerList = new ArrayList<>(providers);
+        for (int i = 0; i < providers; i++) {
+            String country = COUNTRIES[pick(random, COUNTRY_WEIGHTS)];
+            int yearFounded = firstLaunchDate.getYear() - 10 + random.nextInt(50);
+            LaunchServiceProvider provider = new LaunchServiceProvider("provider_" + i, yearFounded, country);
+            provider.setHeadquarters(country);
+            providerList.add(provider);
+            providerConsumer.accept(provider);
+        }
+
+        Zipf providerRanks = new Zipf(providers, skew);
+        List<Rocket> rocketList = new ArrayList<>(rockets);
+        for (int i = 0; i < rockets; i++) {
+            LaunchServiceProvider manufacturer = providerList.get(providerRanks.sample(random));
+            Rocket rocket = new Rocket("rocket_" + i, manufacturer.getCountry(), manufacturer);
+            rocketList.add(rocket);
+            rocketConsumer.accept(rocket);
+        }
+
+        Zipf rocketRanks = new Zipf(rockets, skew);
+        long days = lastLaunchDate.toEpochDay() - firstLaunchDate.toEpochDay() + 1;
+        double logMedianPrice = Math.log(medianPrice.doubleValue());
+        for (long i = 0; i < launches; i++) {
+            Rocket rocket = rocketList.get(rocketRanks.sample(random));
+            Launch launch = new Launch();
+            launch.setLaunchDate(firstLaunchDate.plusDays((long) (random.nextDouble() * days)));
+            launch.setLaunchVehicle(rocket);
+            launch.setLaunchServiceProvider(rocket.getManufacturer());
+            launch.setLaunchSite(rocket.getCountry() + " site " + random.nextInt(SITES_PER_COUNTRY));
+            launch.setOrbit(ORBITS[pick(random, ORBIT_WEIGHTS)]);
+            launch.setFunction(FUNCTIONS[pick(random, FUNCTION_WEIGHTS)]);
+            long price = Math.round(Math.exp(logMedianPrice + priceSpread * random.nextGaussian()));
+            launch.setPrice(BigDecimal.valueOf(price));
+            launch.setLaunchOutcome(random.nextDouble() < failureRate ? Launch.LaunchOutcome.FAILED : Launch.LaunchOutcome.SUCCESSFUL);
+            launchConsumer.accept(launch);
+        }
+    }
+
+    /**
+     * Generates the dataset straight into the DAO, providers and rockets first.
+     */
+    public void writeTo(DAO dao) {
+        generate(dao::createOrUpdate, dao::createOrUpdate, dao::createOrUpdate);
+    }
+
+    /**
+     * Generates the dataset as three CSV files laid out as described by {@link CsvSchema}.
+     * The appendables are not closed.
+     */
+    public void writeCsv(Appendable providerOut, Appendable rocketOut, Appendable launchOut) throws IOException {
+        CSVPrinter providerPrinter = CsvSchema.PROVIDERS.print(providerOut);
+        CSVPrinter rocketPrinter = CsvSchema.ROCKETS.print(rocketOut);
+        CSVPrinter launchPrinter = CsvSchema.LAUNCHES.print(launchOut);
+        try {
+            generate(
+                    provider -> print(providerPrinter, provider.getName(), provider.getYearFounded(),
+                            provider.getCountry(), provider.getHeadquarters()),
+                    rocket -> print(rocketPrinter, rocket.getName(), rocket.getCountry(),
+                            rocket.getManufacturer().getName(), rocket.getManufacturer().getYearFounded(),
+                            rocket.getManufacturer().getCountry()),
+                    launch -> print(launchPrinter, launch.getLaunchDate(), launch.getLaunchVehicle().getName(),
+                            launch.getLaunchVehicle().getCountry(), launch.getLaunchServiceProvider().getName(),
+                            launch.getLaunchServiceProvider().getYearFounded(),
+                            launch.getLaunchServiceProvider().getCountry(), launch.getLaunchSite(),
+                            launch.getOrbit(), launch.getFunction(), launch.getPrice(), launch.getLaunchOutcome()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        providerPrinter.flush();
+        rocketPrinter.flush();
+        launchPrinter.flush();
+    }
+
+    private static void print(CSVPrinter printer, Object... values) {
+        try {
+            printer.printRecord(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int pick(Random random, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < weights.length - 1; i++) {
+            target -= weights[i];
+            if (target < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Samples ranks 0..n-1 with probability proportional to 1 / (rank + 1)^s.
+     */
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double s) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, s);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            int rank = index >= 0 ? index : -index - 1;
+            return Math.min(rank, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package rockets.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value sampled when read, such as how many entities a session maps, rather than
+ * recorded call by call like {@link OperationMetrics}.
+ */
+public final class Gauge implements GaugeMXBean {
+    private final String name;
+
+    private final LongSupplier value;
+
+    Gauge(String name, LongSupplier value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getValue() {
+        return value.getAsLong();
+    }
+
+    @Override
+    public String toString() {
+        return name + "=" + getValue();
+    }
+}
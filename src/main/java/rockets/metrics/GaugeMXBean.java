@@ -0,0 +1,10 @@
+package rockets.metrics;
+
+/**
+ * The JMX view of a {@link Gauge}.
+ */
+public interface GaugeMXBean {
+    String getName();
+
+    long getValue();
+}
@@ -0,0 +1,235 @@
+package rockets.metrics;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityView;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.Projection;
+import rockets.dataaccess.index.LaunchDateIndex;
+import rockets.model.Entity;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A {@link DAO} decorator recording every call in {@link Metrics}, as {@code dao.load},
+ * {@code dao.createOrUpdate}, {@code dao.createOrUpdateAll}, {@code dao.loadAll},
+ * {@code dao.delete}, {@code dao.stream} and {@code dao.project} of the entity class,
+ * and the delegate's launch queries as {@code queries.<method>}.
+ * <p>
+ * A stream is recorded when closed, and its latency only counts the time spent
+ * fetching entities from the delegate, not the time the caller spends on them between
+ * two entities, so scans and the aggregation they feed can be told apart.
+ */
+public class InstrumentedDAO implements DAO {
+    private final DAO delegate;
+
+    private final Metrics metrics;
+
+    public InstrumentedDAO(DAO delegate, Metrics metrics) {
+        notNull(delegate, "delegate cannot be null");
+        notNull(metrics, "metrics cannot be null");
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        return metrics.time("dao.load", clazz, () -> delegate.load(clazz, id));
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, int depth) {
+        return metrics.time("dao.load", clazz, () -> delegate.load(clazz, id, depth));
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        return metrics.time("dao.createOrUpdate", entity.getClass(), () -> delegate.createOrUpdate(entity));
+    }
+
+    /**
+     * Records the call against the class of the first entity.
+     */
+    @Override
+    public <T extends Entity> List<T> createOrUpdateAll(Collection<T> entities) {
+        Class<?> clazz = entities.isEmpty() ? Entity.class : entities.iterator().next().getClass();
+        return metrics.time("dao.createOrUpdateAll", clazz, () -> delegate.createOrUpdateAll(entities));
+    }
+
+    @Override
+    public <T extends Entity> Optional<T> findExisting(T entity) {
+        return metrics.time("dao.findExisting", entity.getClass(), () -> delegate.findExisting(entity));
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        return metrics.time("dao.loadAll", clazz, () -> delegate.loadAll(clazz));
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, int depth) {
+        return metrics.time("dao.loadAll", clazz, () -> delegate.loadAll(clazz, depth));
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        metrics.time("dao.delete", entity.getClass(), () -> {
+            delegate.delete(entity);
+            return null;
+        });
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return timed(metrics.operation("dao.stream", clazz), () -> delegate.stream(clazz));
+    }
+
+    @Override
+    public Stream<EntityView> project(Projection projection) {
+        return timed(metrics.operation("dao.project", projection.getEntityClass()), () -> delegate.project(projection));
+    }
+
+    private static <T> Stream<T> timed(OperationMetrics operation, Supplier<Stream<T>> open) {
+        long start = System.nanoTime();
+        Stream<T> stream;
+        try {
+            stream = open.get();
+        } catch (RuntimeException | Error e) {
+            operation.recordError(System.nanoTime() - start);
+            throw e;
+        }
+        TimedIterator<T> entities = new TimedIterator<>(stream.iterator(), System.nanoTime() - start);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(entities, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        stream.close();
+                    } finally {
+                        if (entities.failed) {
+                            operation.recordError(entities.nanos);
+                        } else {
+                            operation.record(entities.nanos, entities.rows);
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public Optional<LaunchQueries> launchQueries() {
+        return delegate.launchQueries().map(InstrumentedLaunchQueries::new);
+    }
+
+    @Override
+    public Optional<LaunchDateIndex> launchDateIndex() {
+        return delegate.launchDateIndex();
+    }
+
+    /**
+     * Adds up the time spent in the delegate iterator.
+     */
+    private static final class TimedIterator<T> implements Iterator<T> {
+        private final Iterator<T> delegate;
+
+        private long nanos;
+
+        private long rows;
+
+        private boolean failed;
+
+        private TimedIterator(Iterator<T> delegate, long nanos) {
+            this.delegate = delegate;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public boolean hasNext() {
+            long start = System.nanoTime();
+            try {
+                return delegate.hasNext();
+            } catch (RuntimeException | Error e) {
+                failed = true;
+                throw e;
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public T next() {
+            long start = System.nanoTime();
+            try {
+                T next = delegate.next();
+                rows++;
+                return next;
+            } catch (RuntimeException | Error e) {
+                failed = true;
+                throw e;
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    private final class InstrumentedLaunchQueries implements LaunchQueries {
+        private final LaunchQueries delegate;
+
+        private InstrumentedLaunchQueries(LaunchQueries delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<Rocket> mostLaunchedRockets(int k) {
+            return metrics.time("queries.mostLaunchedRockets", () -> delegate.mostLaunchedRockets(k));
+        }
+
+        @Override
+        public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+            return metrics.time("queries.mostReliableLaunchServiceProviders", () -> delegate.mostReliableLaunchServiceProviders(k));
+        }
+
+        @Override
+        public List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k) {
+            return metrics.time("queries.mostUnreliableLaunchServiceProviders", () -> delegate.mostUnreliableLaunchServiceProviders(k));
+        }
+
+        @Override
+        public List<Launch> mostRecentLaunches(int k) {
+            return metrics.time("queries.mostRecentLaunches", () -> delegate.mostRecentLaunches(k));
+        }
+
+        @Override
+        public List<Launch> mostExpensiveLaunches(int k) {
+            return metrics.time("queries.mostExpensiveLaunches", () -> delegate.mostExpensiveLaunches(k));
+        }
+
+        @Override
+        public String dominantCountry(String orbit) {
+            return metrics.time("queries.dominantCountry", () -> delegate.dominantCountry(orbit));
+        }
+
+        @Override
+        public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+            return metrics.time("queries.highestRevenueLaunchServiceProviders", () -> delegate.highestRevenueLaunchServiceProviders(k, year));
+        }
+
+        @Override
+        public Optional<List<LaunchServiceProvider>> highestRevenueOverYears(int k, int firstYear, int lastYear) {
+            return metrics.time("queries.highestRevenueOverYears", () -> delegate.highestRevenueOverYears(k, firstYear, lastYear));
+        }
+    }
+}
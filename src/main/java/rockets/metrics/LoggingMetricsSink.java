@@ -0,0 +1,22 @@
+package rockets.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Logs one line per operation that was called at least once.
+ */
+public class LoggingMetricsSink implements MetricsSink {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMetricsSink.class);
+
+    @Override
+    public void publish(List<OperationMetrics> operations) {
+        for (OperationMetrics operation : operations) {
+            if (operation.getCalls() > 0) {
+                logger.info("{}", operation);
+            }
+        }
+    }
+}
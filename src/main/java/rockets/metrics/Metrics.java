@@ -0,0 +1,203 @@
+package rockets.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A registry of {@link OperationMetrics}, one per operation and entity class, created
+ * on first use. Operations are named by layer, e.g. {@code dao.load},
+ * {@code neo4j.findExistingEntity} or {@code miner.mostLaunchedRockets}, so the time a
+ * miner query spends in the database can be told apart from the time it spends
+ * aggregating.
+ * <p>
+ * {@link #gauge(String, LongSupplier) Gauges} sample a value when read instead.
+ * <p>
+ * Once {@link #registerMBeans(MBeanServer) registered}, every operation, including
+ * those first used later, is exposed as an MXBean named
+ * {@code rockets:type=Operation,name=<operation name>}, and every gauge as one named
+ * {@code rockets:type=Gauge,name=<gauge name>}. Thread-safe.
+ */
+public class Metrics {
+    public static final String DOMAIN = "rockets";
+
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    private volatile MBeanServer server;
+
+    /**
+     * Returns the metrics of an operation not tied to an entity class.
+     */
+    public OperationMetrics operation(String operation) {
+        return operation(operation, "");
+    }
+
+    public OperationMetrics operation(String operation, Class<?> entity) {
+        notNull(entity, "entity cannot be null");
+        return operation(operation, entity.getSimpleName());
+    }
+
+    private OperationMetrics operation(String operation, String entity) {
+        notNull(operation, "operation cannot be null");
+        String name = entity.isEmpty() ? operation : operation + "[" + entity + "]";
+        OperationMetrics metrics = operations.get(name);
+        if (null != metrics) {
+            return metrics;
+        }
+        return operations.computeIfAbsent(name, n -> {
+            OperationMetrics created = new OperationMetrics(operation, entity);
+            register(created, created.getName());
+            return created;
+        });
+    }
+
+    /**
+     * Runs the call, recording its latency and the rows it returned, or that it failed.
+     */
+    public <T> T time(String operation, Supplier<T> call) {
+        return time(operation(operation), call);
+    }
+
+    public <T> T time(String operation, Class<?> entity, Supplier<T> call) {
+        return time(operation(operation, entity), call);
+    }
+
+    private static <T> T time(OperationMetrics metrics, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            metrics.recordError(System.nanoTime() - start);
+            throw e;
+        }
+        metrics.record(System.nanoTime() - start, rowsOf(result));
+        return result;
+    }
+
+    /**
+     * Counts a collection as its size, null as no row and anything else as one row.
+     */
+    static long rowsOf(Object result) {
+        if (null == result) {
+            return 0;
+        } else if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return 1;
+    }
+
+    /**
+     * Returns every operation used so far, by name.
+     */
+    public List<OperationMetrics> getOperations() {
+        List<OperationMetrics> sorted = new ArrayList<>(operations.values());
+        sorted.sort(Comparator.comparing(OperationMetrics::getName));
+        return sorted;
+    }
+
+    /**
+     * Adds a gauge reading the value, replacing any gauge of the same name.
+     */
+    public synchronized Gauge gauge(String name, LongSupplier value) {
+        notNull(name, "name cannot be null");
+        notNull(value, "value cannot be null");
+        Gauge gauge = new Gauge(name, value);
+        Gauge previous = gauges.put(name, gauge);
+        if (null != previous) {
+            unregister(server, previous, name);
+        }
+        register(gauge, name);
+        return gauge;
+    }
+
+    /**
+     * Returns every gauge, by name.
+     */
+    public List<Gauge> getGauges() {
+        List<Gauge> sorted = new ArrayList<>(gauges.values());
+        sorted.sort(Comparator.comparing(Gauge::getName));
+        return sorted;
+    }
+
+    public void publish(MetricsSink sink) {
+        notNull(sink, "sink cannot be null");
+        sink.publish(getOperations());
+    }
+
+    /**
+     * Registers an MXBean for every operation and gauge, now and as they are first used.
+     */
+    public synchronized void registerMBeans(MBeanServer server) {
+        notNull(server, "server cannot be null");
+        unregisterMBeans();
+        this.server = server;
+        operations.values().forEach(metrics -> register(metrics, metrics.getName()));
+        gauges.values().forEach(gauge -> register(gauge, gauge.getName()));
+    }
+
+    public synchronized void unregisterMBeans() {
+        MBeanServer registered = server;
+        server = null;
+        operations.values().forEach(metrics -> unregister(registered, metrics, metrics.getName()));
+        gauges.values().forEach(gauge -> unregister(registered, gauge, gauge.getName()));
+    }
+
+    public static ObjectName objectName(OperationMetrics metrics) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Operation,name=" + ObjectName.quote(metrics.getName()));
+    }
+
+    public static ObjectName objectName(Gauge gauge) throws JMException {
+        return new ObjectName(DOMAIN + ":type=Gauge,name=" + ObjectName.quote(gauge.getName()));
+    }
+
+    private static ObjectName objectName(Object mbean) throws JMException {
+        return mbean instanceof Gauge ? objectName((Gauge) mbean) : objectName((OperationMetrics) mbean);
+    }
+
+    private void register(Object mbean, String what) {
+        MBeanServer registered = server;
+        if (null == registered) {
+            return;
+        }
+        try {
+            ObjectName name = objectName(mbean);
+            if (!registered.isRegistered(name)) {
+                registered.registerMBean(mbean, name);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not register MBean of {}: {}", what, e.getMessage());
+        }
+    }
+
+    private static void unregister(MBeanServer registered, Object mbean, String what) {
+        if (null == registered) {
+            return;
+        }
+        try {
+            ObjectName name = objectName(mbean);
+            if (registered.isRegistered(name)) {
+                registered.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warn("Could not unregister MBean of {}: {}", what, e.getMessage());
+        }
+    }
+}
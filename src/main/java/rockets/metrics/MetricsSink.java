@@ -0,0 +1,13 @@
+package rockets.metrics;
+
+import java.util.List;
+
+/**
+ * Receives the operations of a {@link Metrics} registry when it is
+ * {@link Metrics#publish(MetricsSink) published}, e.g. to forward them to a monitoring
+ * system. Counts are cumulative since the registry was created.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+    void publish(List<OperationMetrics> operations);
+}
@@ -0,0 +1,109 @@
+package rockets.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call, error and row counts and the latency histogram of one operation on one entity
+ * class. Failed calls count as calls and errors, and their latency is recorded too.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+    private final String operation;
+
+    private final String entity;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder rows = new LongAdder();
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    OperationMetrics(String operation, String entity) {
+        this.operation = operation;
+        this.entity = entity;
+    }
+
+    public void record(long nanos, long rows) {
+        calls.increment();
+        this.rows.add(rows);
+        latencies.record(nanos);
+    }
+
+    public void recordError(long nanos) {
+        calls.increment();
+        errors.increment();
+        latencies.record(nanos);
+    }
+
+    /**
+     * Returns the operation and, when it is about one entity class, the class in
+     * brackets, e.g. {@code dao.load[Rocket]}.
+     */
+    public String getName() {
+        return entity.isEmpty() ? operation : operation + "[" + entity + "]";
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the simple name of the entity class, or an empty string.
+     */
+    @Override
+    public String getEntity() {
+        return entity;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latencies.getMean() / 1000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latencies.valueAt(0.5) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latencies.valueAt(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latencies.valueAt(0.999) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latencies.getMax() / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, %d errors, %d rows, p50 %.1f us, p99 %.1f us, p999 %.1f us, max %.1f us",
+                getName(), getCalls(), getErrors(), getRows(), getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,26 @@
+package rockets.metrics;
+
+/**
+ * The JMX view of one operation's {@link OperationMetrics}, latencies in microseconds.
+ */
+public interface OperationMetricsMXBean {
+    String getOperation();
+
+    String getEntity();
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
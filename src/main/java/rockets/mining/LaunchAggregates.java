@@ -0,0 +1,242 @@
+package rockets.mining;
+
+import rockets.model.Dictionaries;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * Tallies built from a single pass over a set of launches: launches per rocket,
+ * successes/failures per launch service provider, revenue per provider and year,
+ * and launches per orbit and country.
+ * <p>
+ * Every query of {@link RocketMiner} can be answered from one instance, so callers
+ * asking several questions should build it once and reuse it.
+ * Launches tied on date or price keep the order in which they were loaded; tied
+ * groups keep the iteration order of their hash map, as the miner always has.
+ * <p>
+ * Only the tallies and a bounded number of the most recent and most expensive
+ * launches are kept, so memory does not grow with the number of launches scanned.
+ * <p>
+ * Aggregates of consecutive chunks of launches can be {@link #merge merged}. Chunk
+ * aggregates remember the order their groups appeared in, so merging them in chunk
+ * order rebuilds the hash maps exactly as a single pass would, and ties rank the same.
+ */
+public class LaunchAggregates {
+    static final Comparator<Launch> MOST_RECENT_FIRST =
+            Comparator.comparing(Launch::getLaunchDate, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder())).reversed();
+
+    static final Comparator<Launch> MOST_EXPENSIVE_FIRST =
+            Comparator.comparing(Launch::getPrice, Comparator.nullsFirst(Comparator.<BigDecimal>naturalOrder())).reversed();
+
+    private final int launchesKept;
+
+    private final TopK.Selector<Launch> mostRecent;
+
+    private final TopK.Selector<Launch> mostExpensive;
+
+    private int size;
+
+    /**
+     * Whether the maps keep the order of insertion, for chunks to be merged.
+     */
+    private final boolean chunk;
+
+    private final Map<Rocket, Integer> launchesPerRocket;
+
+    private final Map<LaunchServiceProvider, ProviderTally> launchesPerProvider;
+
+    private final Map<Integer, Map<LaunchServiceProvider, BigDecimal>> revenuePerYear;
+
+    /**
+     * Launches per orbit and manufacturer country, by their {@link Dictionaries} codes.
+     */
+    private final Map<Integer, Map<Integer, Integer>> launchesPerOrbit;
+
+    /**
+     * Aggregates the launches, keeping all of them for the launch queries.
+     */
+    public LaunchAggregates(Iterable<Launch> launches) {
+        this(launches, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Aggregates the launches, keeping only the {@code launchesKept} most recent and
+     * most expensive ones, which bounds the k accepted by the launch queries.
+     */
+    public LaunchAggregates(Iterable<Launch> launches, int launchesKept) {
+        this(launches, launchesKept, false);
+    }
+
+    private LaunchAggregates(Iterable<Launch> launches, int launchesKept, boolean chunk) {
+        this.launchesKept = launchesKept;
+        this.chunk = chunk;
+        this.mostRecent = new TopK.Selector<>(launchesKept, MOST_RECENT_FIRST);
+        this.mostExpensive = new TopK.Selector<>(launchesKept, MOST_EXPENSIVE_FIRST);
+        this.launchesPerRocket = newMap();
+        this.launchesPerProvider = newMap();
+        this.revenuePerYear = newMap();
+        this.launchesPerOrbit = newMap();
+        for (Launch launch : launches) {
+            add(launch);
+        }
+    }
+
+    /**
+     * Aggregates one chunk of launches, to be {@link #merge merged} into the aggregates
+     * of the launches before it.
+     */
+    static LaunchAggregates ofChunk(Iterable<Launch> launches, int launchesKept) {
+        return new LaunchAggregates(launches, launchesKept, true);
+    }
+
+    private <K, V> Map<K, V> newMap() {
+        return chunk ? new LinkedHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * Adds the tallies of a chunk of launches following those aggregated so far.
+     */
+    void merge(LaunchAggregates later) {
+        isTrue(later.chunk, "only chunk aggregates can be merged");
+        isTrue(later.launchesKept == launchesKept, "aggregates must keep the same number of launches");
+        size += later.size;
+        mostRecent.merge(later.mostRecent);
+        mostExpensive.merge(later.mostExpensive);
+        later.launchesPerRocket.forEach((rocket, launches) -> launchesPerRocket.merge(rocket, launches, Integer::sum));
+        later.launchesPerProvider.forEach((provider, tally) -> {
+            ProviderTally merged = launchesPerProvider.computeIfAbsent(provider, p -> new ProviderTally());
+            merged.successful += tally.successful;
+            merged.failed += tally.failed;
+            merged.total += tally.total;
+        });
+        later.revenuePerYear.forEach((year, revenues) -> {
+            Map<LaunchServiceProvider, BigDecimal> merged = revenuePerYear.computeIfAbsent(year, y -> newMap());
+            revenues.forEach((provider, revenue) -> merged.merge(provider, revenue, BigDecimal::add));
+        });
+        later.launchesPerOrbit.forEach((orbit, countries) -> {
+            Map<Integer, Integer> merged = launchesPerOrbit.computeIfAbsent(orbit, o -> newMap());
+            countries.forEach((country, launches) -> merged.merge(country, launches, Integer::sum));
+        });
+    }
+
+    void add(Launch launch) {
+        size++;
+        mostRecent.offer(launch);
+        mostExpensive.offer(launch);
+        launchesPerRocket.merge(launch.getLaunchVehicle(), 1, Integer::sum);
+
+        ProviderTally tally = launchesPerProvider.computeIfAbsent(launch.getLaunchServiceProvider(), p -> new ProviderTally());
+        tally.total++;
+        if (launch.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL) {
+            tally.successful++;
+        } else if (launch.getLaunchOutcome() == Launch.LaunchOutcome.FAILED) {
+            tally.failed++;
+        }
+
+        if (null != launch.getLaunchDate() && null != launch.getPrice()) {
+            revenuePerYear.computeIfAbsent(launch.getLaunchDate().getYear(), y -> newMap())
+                    .merge(launch.getLaunchServiceProvider(), launch.getPrice(), BigDecimal::add);
+        }
+
+        Rocket vehicle = launch.getLaunchVehicle();
+        if (null != vehicle && null != vehicle.getManufacturer()) {
+            launchesPerOrbit.computeIfAbsent(Dictionaries.ORBITS.encode(launch.getOrbit()), o -> newMap())
+                    .merge(Dictionaries.COUNTRIES.encode(vehicle.getManufacturer().getCountry()), 1, Integer::sum);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns how many of the most recent and most expensive launches were kept, the
+     * largest k their launch queries accept.
+     */
+    public int getLaunchesKept() {
+        return launchesKept;
+    }
+
+    public List<Rocket> mostLaunchedRockets(int k) {
+        return topKeys(launchesPerRocket, k);
+    }
+
+    public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        Map<LaunchServiceProvider, Double> ratios = new HashMap<>();
+        launchesPerProvider.forEach((provider, tally) -> {
+            if (tally.successful > 0) {
+                ratios.put(provider, (double) tally.successful / tally.total);
+            }
+        });
+        return topKeys(ratios, k);
+    }
+
+    public List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k) {
+        Map<LaunchServiceProvider, Double> ratios = new HashMap<>();
+        launchesPerProvider.forEach((provider, tally) -> {
+            if (tally.failed > 0) {
+                ratios.put(provider, (double) tally.failed / tally.total);
+            }
+        });
+        return topKeys(ratios, k);
+    }
+
+    public List<Launch> mostRecentLaunches(int k) {
+        return firstKept(mostRecent, k);
+    }
+
+    public List<Launch> mostExpensiveLaunches(int k) {
+        return firstKept(mostExpensive, k);
+    }
+
+    private List<Launch> firstKept(TopK.Selector<Launch> selector, int k) {
+        isTrue(k >= 0, "k cannot be negative: %d", k);
+        isTrue(k <= launchesKept, "only the top %d launches were kept", launchesKept);
+        List<Launch> kept = selector.result();
+        return kept.size() <= k ? kept : new ArrayList<>(kept.subList(0, k));
+    }
+
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        Map<LaunchServiceProvider, BigDecimal> revenue = revenuePerYear.getOrDefault(year, Collections.emptyMap());
+        return topKeys(revenue, k);
+    }
+
+    /**
+     * Returns the country whose rockets were launched most often into the orbit,
+     * or an empty string when nothing was launched into it.
+     */
+    public String dominantCountry(String orbit) {
+        Map<Integer, Integer> countries = launchesPerOrbit.getOrDefault(Dictionaries.ORBITS.codeOf(orbit), Collections.emptyMap());
+        List<Integer> dominant = topKeys(countries, 1);
+        return dominant.isEmpty() ? "" : Dictionaries.COUNTRIES.decode(dominant.get(0));
+    }
+
+    private static <K, V extends Comparable<? super V>> List<K> topKeys(Map<K, V> values, int k) {
+        Comparator<Map.Entry<K, V>> byValue = (a, b) -> b.getValue().compareTo(a.getValue());
+        List<Map.Entry<K, V>> top = TopK.select(values.entrySet(), k, byValue);
+        List<K> keys = new ArrayList<>(top.size());
+        for (Map.Entry<K, V> entry : top) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    private static final class ProviderTally {
+        private int successful;
+        private int failed;
+        private int total;
+    }
+}
@@ -0,0 +1,315 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.LaunchQueries;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * The tallies of {@link LaunchAggregates}, maintained launch by launch as launches are
+ * saved and deleted instead of recomputed by a scan.
+ * <p>
+ * Each saved launch leaves a snapshot of what it contributed, so saving it again or
+ * deleting it takes back exactly that contribution: counter updates cost O(1), and
+ * keeping the launch ids ordered by date and price O(log n). Snapshots hold ids and
+ * scalar keys, not the launches, so the k launches asked for are loaded back from the
+ * DAO by id, and revenue is tallied in whole cents, as by
+ * {@link rockets.dataaccess.columnar.ColumnarLaunchStore}. Queries select the top k
+ * among the tallied rockets and providers, not among launches. Changes to rockets and
+ * providers show once their launches are saved again.
+ * <p>
+ * Groups tied on their tally rank in the order they first appeared. Thread-safe.
+ */
+public class LaunchLeaderboards implements LaunchQueries {
+    private static final Comparator<Contribution> MOST_RECENT_FIRST =
+            Comparator.comparing((Contribution c) -> c.launchDate, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder())).reversed()
+                    .thenComparingLong(c -> c.sequence);
+
+    private static final Comparator<Contribution> MOST_EXPENSIVE_FIRST =
+            Comparator.comparingLong((Contribution c) -> c.priceCents).reversed()
+                    .thenComparingLong(c -> c.sequence);
+
+    /**
+     * The price in cents of launches without a price, ranking them last.
+     */
+    private static final long UNPRICED = Long.MIN_VALUE;
+
+    private final DAO dao;
+
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    private final NavigableSet<Contribution> byDate = new TreeSet<>(MOST_RECENT_FIRST);
+
+    private final NavigableSet<Contribution> byPrice = new TreeSet<>(MOST_EXPENSIVE_FIRST);
+
+    private final Map<Rocket, Integer> launchesPerRocket = new LinkedHashMap<>();
+
+    private final Map<LaunchServiceProvider, ProviderTally> launchesPerProvider = new LinkedHashMap<>();
+
+    private final RevenueCube revenue = new RevenueCube();
+
+    private final Map<String, Map<String, Integer>> launchesPerOrbit = new HashMap<>();
+
+    private long sequence;
+
+    /**
+     * @param dao loads the launches the queries return
+     */
+    public LaunchLeaderboards(DAO dao) {
+        notNull(dao, "dao cannot be null");
+        this.dao = dao;
+    }
+
+    /**
+     * Counts the launch, replacing what it contributed when it was last saved.
+     * Launches without an id are ignored.
+     */
+    public synchronized void update(Launch launch) {
+        if (null == launch.getId()) {
+            return;
+        }
+        Contribution previous = contributions.get(launch.getId());
+        long order = null == previous ? sequence++ : previous.sequence;
+        if (null != previous) {
+            subtract(previous);
+        }
+        Contribution contribution = new Contribution(launch, order);
+        contributions.put(launch.getId(), contribution);
+        add(contribution);
+    }
+
+    /**
+     * Takes back what the launch contributed when it was last saved.
+     */
+    public synchronized void remove(Launch launch) {
+        Contribution previous = null == launch.getId() ? null : contributions.remove(launch.getId());
+        if (null != previous) {
+            subtract(previous);
+        }
+    }
+
+    public synchronized void clear() {
+        contributions.clear();
+        byDate.clear();
+        byPrice.clear();
+        launchesPerRocket.clear();
+        launchesPerProvider.clear();
+        revenue.clear();
+        launchesPerOrbit.clear();
+    }
+
+    public synchronized int size() {
+        return contributions.size();
+    }
+
+    /**
+     * Returns the revenue cube kept current along with the leaderboards.
+     */
+    public RevenueCube getRevenueCube() {
+        return revenue;
+    }
+
+    private void add(Contribution c) {
+        byDate.add(c);
+        byPrice.add(c);
+        launchesPerRocket.merge(c.vehicle, 1, Integer::sum);
+
+        ProviderTally tally = launchesPerProvider.computeIfAbsent(c.provider, p -> new ProviderTally());
+        tally.total++;
+        if (c.outcome == Launch.LaunchOutcome.SUCCESSFUL) {
+            tally.successful++;
+        } else if (c.outcome == Launch.LaunchOutcome.FAILED) {
+            tally.failed++;
+        }
+
+        revenue.add(c.provider, c.launchDate, c.orbit, c.price());
+
+        if (c.countsForOrbit) {
+            launchesPerOrbit.computeIfAbsent(c.orbit, o -> new LinkedHashMap<>()).merge(c.country, 1, Integer::sum);
+        }
+    }
+
+    private void subtract(Contribution c) {
+        byDate.remove(c);
+        byPrice.remove(c);
+        decrement(launchesPerRocket, c.vehicle);
+
+        ProviderTally tally = launchesPerProvider.get(c.provider);
+        tally.total--;
+        if (c.outcome == Launch.LaunchOutcome.SUCCESSFUL) {
+            tally.successful--;
+        } else if (c.outcome == Launch.LaunchOutcome.FAILED) {
+            tally.failed--;
+        }
+        if (tally.total == 0) {
+            launchesPerProvider.remove(c.provider);
+        }
+
+        revenue.subtract(c.provider, c.launchDate, c.orbit, c.price());
+
+        if (c.countsForOrbit) {
+            Map<String, Integer> countries = launchesPerOrbit.get(c.orbit);
+            decrement(countries, c.country);
+            if (countries.isEmpty()) {
+                launchesPerOrbit.remove(c.orbit);
+            }
+        }
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    @Override
+    public synchronized List<Rocket> mostLaunchedRockets(int k) {
+        return topKeys(launchesPerRocket, k, Function.identity());
+    }
+
+    @Override
+    public synchronized List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
+        Map<LaunchServiceProvider, Double> ratios = new LinkedHashMap<>();
+        launchesPerProvider.forEach((provider, tally) -> {
+            if (tally.successful > 0) {
+                ratios.put(provider, (double) tally.successful / tally.total);
+            }
+        });
+        return topKeys(ratios, k, Function.identity());
+    }
+
+    @Override
+    public synchronized List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k) {
+        Map<LaunchServiceProvider, Double> ratios = new LinkedHashMap<>();
+        launchesPerProvider.forEach((provider, tally) -> {
+            if (tally.failed > 0) {
+                ratios.put(provider, (double) tally.failed / tally.total);
+            }
+        });
+        return topKeys(ratios, k, Function.identity());
+    }
+
+    @Override
+    public List<Launch> mostRecentLaunches(int k) {
+        return load(first(byDate, k));
+    }
+
+    @Override
+    public List<Launch> mostExpensiveLaunches(int k) {
+        return load(first(byPrice, k));
+    }
+
+    @Override
+    public synchronized String dominantCountry(String orbit) {
+        List<String> dominant = topKeys(launchesPerOrbit.getOrDefault(orbit, Collections.emptyMap()), 1, Function.identity());
+        return dominant.isEmpty() ? "" : dominant.get(0);
+    }
+
+    @Override
+    public synchronized List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        return revenue.highestRevenueLaunchServiceProviders(k, year);
+    }
+
+    /**
+     * Answers from the maintained {@link #getRevenueCube() revenue cube}.
+     */
+    @Override
+    public Optional<List<LaunchServiceProvider>> highestRevenueOverYears(int k, int firstYear, int lastYear) {
+        return Optional.of(revenue.highestRevenueLaunchServiceProviders(k, firstYear, lastYear));
+    }
+
+    private synchronized long[] first(NavigableSet<Contribution> ordered, int k) {
+        isTrue(k >= 0, "k cannot be negative: %d", k);
+        long[] ids = new long[Math.min(k, ordered.size())];
+        Iterator<Contribution> iterator = ordered.iterator();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = iterator.next().id;
+        }
+        return ids;
+    }
+
+    /**
+     * Loads the launches outside the lock, skipping any deleted meanwhile.
+     */
+    private List<Launch> load(long[] ids) {
+        List<Launch> launches = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Launch launch = dao.load(Launch.class, id);
+            if (null != launch) {
+                launches.add(launch);
+            }
+        }
+        return launches;
+    }
+
+    private static <K, V, C extends Comparable<? super C>> List<K> topKeys(Map<K, V> values, int k, Function<V, C> tally) {
+        Comparator<Map.Entry<K, V>> byTally = (a, b) -> tally.apply(b.getValue()).compareTo(tally.apply(a.getValue()));
+        List<Map.Entry<K, V>> top = TopK.select(values.entrySet(), k, byTally);
+        List<K> keys = new ArrayList<>(top.size());
+        for (Map.Entry<K, V> entry : top) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * What a launch added to the tallies when it was saved.
+     */
+    private static final class Contribution {
+        private final long id;
+        private final long sequence;
+        private final Rocket vehicle;
+        private final LaunchServiceProvider provider;
+        private final Launch.LaunchOutcome outcome;
+        private final LocalDate launchDate;
+        private final long priceCents;
+        private final String orbit;
+        private final boolean countsForOrbit;
+        private final String country;
+
+        private Contribution(Launch launch, long sequence) {
+            this.id = launch.getId();
+            this.sequence = sequence;
+            this.vehicle = launch.getLaunchVehicle();
+            this.provider = launch.getLaunchServiceProvider();
+            this.outcome = launch.getLaunchOutcome();
+            this.launchDate = launch.getLaunchDate();
+            this.priceCents = null == launch.getPrice() ? UNPRICED : toCents(launch.getPrice());
+            this.orbit = launch.getOrbit();
+            this.countsForOrbit = null != vehicle && null != vehicle.getManufacturer();
+            this.country = countsForOrbit ? vehicle.getManufacturer().getCountry() : null;
+        }
+
+        private BigDecimal price() {
+            return priceCents == UNPRICED ? null : BigDecimal.valueOf(priceCents, 2);
+        }
+
+        private static long toCents(BigDecimal price) {
+            return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        }
+    }
+
+    private static final class ProviderTally {
+        private int successful;
+        private int failed;
+        private int total;
+    }
+}
@@ -0,0 +1,125 @@
+package rockets.mining;
+
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityView;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.Projection;
+import rockets.dataaccess.index.LaunchDateIndex;
+import rockets.model.Entity;
+import rockets.model.Launch;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * A {@link DAO} decorator keeping {@link LaunchLeaderboards} up to date with the
+ * launches saved and deleted through it, and offering them as its
+ * {@link #launchQueries() launch queries}, so a {@link RocketMiner} over this DAO
+ * answers from the counters instead of scanning launches.
+ * <p>
+ * The leaderboards start from the launches already in the delegate; launches written
+ * to the delegate directly are only seen after {@link #rebuild()}.
+ */
+public class LeaderboardDAO implements DAO {
+    private final DAO delegate;
+
+    private final LaunchLeaderboards leaderboards;
+
+    public LeaderboardDAO(DAO delegate) {
+        notNull(delegate, "delegate cannot be null");
+        this.delegate = delegate;
+        this.leaderboards = new LaunchLeaderboards(delegate);
+        rebuild();
+    }
+
+    /**
+     * Recounts every launch of the delegate.
+     */
+    public void rebuild() {
+        leaderboards.clear();
+        try (Stream<Launch> launches = delegate.stream(Launch.class)) {
+            launches.forEach(leaderboards::update);
+        }
+    }
+
+    public LaunchLeaderboards getLeaderboards() {
+        return leaderboards;
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id) {
+        return delegate.load(clazz, id);
+    }
+
+    @Override
+    public <T extends Entity> T load(Class<T> clazz, Long id, int depth) {
+        return delegate.load(clazz, id, depth);
+    }
+
+    @Override
+    public <T extends Entity> T createOrUpdate(T entity) {
+        T saved = delegate.createOrUpdate(entity);
+        if (saved instanceof Launch) {
+            leaderboards.update((Launch) saved);
+        }
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> List<T> createOrUpdateAll(Collection<T> entities) {
+        List<T> saved = delegate.createOrUpdateAll(entities);
+        for (T entity : saved) {
+            if (entity instanceof Launch) {
+                leaderboards.update((Launch) entity);
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    public <T extends Entity> Optional<T> findExisting(T entity) {
+        return delegate.findExisting(entity);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+        return delegate.loadAll(clazz);
+    }
+
+    @Override
+    public <T extends Entity> Collection<T> loadAll(Class<T> clazz, int depth) {
+        return delegate.loadAll(clazz, depth);
+    }
+
+    @Override
+    public <T extends Entity> Stream<T> stream(Class<T> clazz) {
+        return delegate.stream(clazz);
+    }
+
+    @Override
+    public Stream<EntityView> project(Projection projection) {
+        return delegate.project(projection);
+    }
+
+    @Override
+    public <T extends Entity> void delete(T entity) {
+        delegate.delete(entity);
+        if (entity instanceof Launch) {
+            leaderboards.remove((Launch) entity);
+        }
+    }
+
+    @Override
+    public Optional<LaunchQueries> launchQueries() {
+        return Optional.of(leaderboards);
+    }
+
+    @Override
+    public Optional<LaunchDateIndex> launchDateIndex() {
+        return delegate.launchDateIndex();
+    }
+}
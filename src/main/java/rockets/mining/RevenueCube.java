@@ -0,0 +1,170 @@
+package rockets.mining;
+
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+
+/**
+ * Launch revenue pre-aggregated per provider by month, rolled up by year, and by year
+ * and orbit. Adding or subtracting a launch updates one cell of each level, and top-k
+ * queries read one cell per provider, or one per provider and year for a year range,
+ * instead of scanning launches.
+ * <p>
+ * Only launches with a date and a price count. A provider ranks for a period only if
+ * it has such launches in it, and providers tied on revenue rank in the order they
+ * were first added. Thread-safe.
+ */
+public class RevenueCube {
+    private static final Comparator<Map.Entry<LaunchServiceProvider, BigDecimal>> HIGHEST_FIRST =
+            (a, b) -> b.getValue().compareTo(a.getValue());
+
+    private final Map<LaunchServiceProvider, ProviderCells> cells = new LinkedHashMap<>();
+
+    public RevenueCube() {
+    }
+
+    public RevenueCube(Iterable<Launch> launches) {
+        for (Launch launch : launches) {
+            add(launch);
+        }
+    }
+
+    public void add(Launch launch) {
+        add(launch.getLaunchServiceProvider(), launch.getLaunchDate(), launch.getOrbit(), launch.getPrice());
+    }
+
+    /**
+     * Takes back a launch added before; it must not have changed since.
+     */
+    public void subtract(Launch launch) {
+        subtract(launch.getLaunchServiceProvider(), launch.getLaunchDate(), launch.getOrbit(), launch.getPrice());
+    }
+
+    public synchronized void add(LaunchServiceProvider provider, LocalDate date, String orbit, BigDecimal price) {
+        if (null == date || null == price) {
+            return;
+        }
+        ProviderCells providerCells = cells.computeIfAbsent(provider, p -> new ProviderCells());
+        providerCells.months.computeIfAbsent(YearMonth.from(date), m -> new Cell()).add(price);
+        providerCells.years.computeIfAbsent(date.getYear(), y -> new Cell()).add(price);
+        providerCells.orbits.computeIfAbsent(date.getYear(), y -> new HashMap<>())
+                .computeIfAbsent(orbit, o -> new Cell()).add(price);
+    }
+
+    public synchronized void subtract(LaunchServiceProvider provider, LocalDate date, String orbit, BigDecimal price) {
+        if (null == date || null == price) {
+            return;
+        }
+        ProviderCells providerCells = cells.get(provider);
+        isTrue(null != providerCells, "launch was not added");
+        subtract(providerCells.months, YearMonth.from(date), price);
+        subtract(providerCells.years, date.getYear(), price);
+        Map<String, Cell> orbits = providerCells.orbits.get(date.getYear());
+        subtract(orbits, orbit, price);
+        if (orbits.isEmpty()) {
+            providerCells.orbits.remove(date.getYear());
+        }
+        if (providerCells.years.isEmpty()) {
+            cells.remove(provider);
+        }
+    }
+
+    private static <K> void subtract(Map<K, Cell> cells, K key, BigDecimal price) {
+        Cell cell = cells.get(key);
+        isTrue(null != cell, "launch was not added");
+        cell.launches--;
+        cell.revenue = cell.revenue.subtract(price);
+        if (cell.launches == 0) {
+            cells.remove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+    }
+
+    /**
+     * Returns the revenue of the provider in the year, zero if it had none.
+     */
+    public synchronized BigDecimal revenue(LaunchServiceProvider provider, int year) {
+        ProviderCells providerCells = cells.get(provider);
+        Cell cell = null == providerCells ? null : providerCells.years.get(year);
+        return null == cell ? BigDecimal.ZERO : cell.revenue;
+    }
+
+    public synchronized List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
+        return top(k, providerCells -> providerCells.years.get(year));
+    }
+
+    /**
+     * Returns the k providers with the highest revenue over the years, both included.
+     */
+    public synchronized List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int firstYear, int lastYear) {
+        isTrue(firstYear <= lastYear, "firstYear cannot be after lastYear");
+        return top(k, providerCells -> {
+            Cell total = null;
+            for (Cell cell : providerCells.years.subMap(firstYear, true, lastYear, true).values()) {
+                if (null == total) {
+                    total = new Cell();
+                }
+                total.launches += cell.launches;
+                total.revenue = total.revenue.add(cell.revenue);
+            }
+            return total;
+        });
+    }
+
+    public synchronized List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, YearMonth month) {
+        return top(k, providerCells -> providerCells.months.get(month));
+    }
+
+    public synchronized List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year, String orbit) {
+        return top(k, providerCells -> providerCells.orbits.getOrDefault(year, new HashMap<>()).get(orbit));
+    }
+
+    private List<LaunchServiceProvider> top(int k, Function<ProviderCells, Cell> cellOf) {
+        isTrue(k >= 0, "k cannot be negative: %d", k);
+        Map<LaunchServiceProvider, BigDecimal> revenues = new LinkedHashMap<>();
+        cells.forEach((provider, providerCells) -> {
+            Cell cell = cellOf.apply(providerCells);
+            if (null != cell) {
+                revenues.put(provider, cell.revenue);
+            }
+        });
+        List<Map.Entry<LaunchServiceProvider, BigDecimal>> top = TopK.select(revenues.entrySet(), k, HIGHEST_FIRST);
+        List<LaunchServiceProvider> providers = new ArrayList<>(top.size());
+        for (Map.Entry<LaunchServiceProvider, BigDecimal> entry : top) {
+            providers.add(entry.getKey());
+        }
+        return providers;
+    }
+
+    private static final class ProviderCells {
+        private final Map<YearMonth, Cell> months = new HashMap<>();
+        private final TreeMap<Integer, Cell> years = new TreeMap<>();
+        private final Map<Integer, Map<String, Cell>> orbits = new HashMap<>();
+    }
+
+    private static final class Cell {
+        private int launches;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private void add(BigDecimal price) {
+            launches++;
+            revenue = revenue.add(price);
+        }
+    }
+}
@@ -1,70 +1,259 @@
 package rockets.mining;
 
-import com.google.common.collect.Iterables;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.index.LaunchDateIndex;
+import rockets.metrics.Metrics;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
 import rockets.model.Rocket;
-import java.math.BigDecimal;
-import java.util.*;
-import java.util.stream.Collectors;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.*;
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
 
 
+/**
+ * Answers questions about launches. When the DAO offers {@link DAO#launchQueries()},
+ * queries run inside the store and only the answers are loaded; otherwise every
+ * launch is streamed from the DAO and aggregated in the JVM in constant memory. Each
+ * query makes its own pass, so it sees every launch saved so far, unless it is asked
+ * {@link #inOnePass(Supplier) in one pass} with others.
+ * Queries can also be given explicitly, e.g. a
+ * {@link rockets.dataaccess.columnar.ColumnarLaunchStore} snapshot of the DAO.
+ * Date-bounded queries try the launch queries first, given or the DAO's, then the
+ * DAO's {@link DAO#launchDateIndex() launch date index}, reading only the launches of
+ * the dates asked about, and scan every launch only when neither is offered; revenue
+ * ties read from the index rank in date order.
+ * <p>
+ * In parallel mode, launches are read in chunks that are aggregated on a fork/join
+ * pool and merged in order, so answers, including the order of ties, are the same as
+ * in sequential mode.
+ */
 public class RocketMiner {
 
+    public static final int DEFAULT_LAUNCHES_KEPT = 100;
+
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
     private DAO dao;
 
+    private LaunchQueries queries;
+
+    private ForkJoinPool pool;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private Metrics metrics = new Metrics();
+
+    private final ThreadLocal<SharedPass> passes = new ThreadLocal<>();
+
     public RocketMiner(DAO dao) {
         this.dao = dao;
     }
 
     /**
-     * Returns the top-k most active rockets, as measured by number of completed launches.
+     * Answers the launch queries with the given ones rather than the DAO's.
+     */
+    public RocketMiner(DAO dao, LaunchQueries queries) {
+        this.dao = dao;
+        this.queries = queries;
+    }
+
+    /**
+     * Aggregates launches in parallel on the given pool.
+     */
+    public RocketMiner(DAO dao, ForkJoinPool pool) {
+        notNull(pool, "pool cannot be null");
+        this.dao = dao;
+        this.pool = pool;
+    }
+
+    /**
+     * Aggregates launches in parallel on a pool of its own with the given parallelism.
+     */
+    public RocketMiner(DAO dao, int parallelism) {
+        this(dao, newPool(parallelism));
+    }
+
+    private static ForkJoinPool newPool(int parallelism) {
+        isTrue(parallelism > 0, "parallelism must be positive");
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Sets the number of launches aggregated by each task in parallel mode.
+     */
+    public void setChunkSize(int chunkSize) {
+        isTrue(chunkSize > 0, "chunkSize must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets where the latency of each query is recorded, as {@code miner.<method>}; the
+     * revenue over a range of years as
+     * {@code miner.highestRevenueLaunchServiceProvidersOverYears}.
+     */
+    public void setMetrics(Metrics metrics) {
+        notNull(metrics, "metrics cannot be null");
+        this.metrics = metrics;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    private Optional<LaunchQueries> launchQueries() {
+        return null != queries ? Optional.of(queries) : dao.launchQueries();
+    }
+
+    /**
+     * Returns the DAO's launch date index, unless launch queries were given explicitly.
+     */
+    private Optional<LaunchDateIndex> launchDateIndex() {
+        return null != queries ? Optional.empty() : dao.launchDateIndex();
+    }
+
+    /**
+     * Streams every launch once and aggregates it in a single pass, so several
+     * questions can be answered from one pass.
      *
-     * @param k the number of rockets to be returned.
-     * @return the list of k most active rockets.
+     * @param launchesKept the largest k to be asked of the launch queries.
+     * @return the aggregates of all launches currently in the DAO.
+     */
+    public LaunchAggregates aggregate(int launchesKept) {
+        if (null != pool) {
+            return inChunks(chunk -> LaunchAggregates.ofChunk(chunk, launchesKept),
+                    new LaunchAggregates(Collections.emptyList(), launchesKept),
+                    (aggregates, later) -> {
+                        aggregates.merge(later);
+                        return aggregates;
+                    });
+        }
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            return new LaunchAggregates(launches::iterator, launchesKept);
+        }
+    }
+
+    /**
+     * Aggregates every launch, keeping the {@value #DEFAULT_LAUNCHES_KEPT} most recent
+     * and most expensive ones.
      */
+    public LaunchAggregates aggregate() {
+        return aggregate(DEFAULT_LAUNCHES_KEPT);
+    }
 
-    public List<Rocket> mostLaunchedRockets(int k) {
-        Collection<Launch> launchesa = dao.loadAll(Launch.class);
-        ArrayList<Rocket> rockets = new ArrayList<>();
-        for(int i = 0;i<launchesa.size();i++)
-        {
-            rockets.add(Iterables.get(launchesa,i).getLaunchVehicle());
+    /**
+     * Runs the questions with the queries of this thread that would scan launches
+     * answered from one shared pass, made by the first of them, so a refresh asking
+     * several questions streams the launches once. The pass ends with the questions:
+     * queries asked afterwards scan again and see launches saved meanwhile.
+     */
+    public <T> T inOnePass(Supplier<T> questions) {
+        notNull(questions, "questions cannot be null");
+        if (null != passes.get()) {
+            return questions.get();
         }
-        Map<Rocket,Integer> rocketnum = new HashMap<>();
-        for(int i=0;i<rockets.size();i++)
-        {
-            if(rocketnum.containsKey(rockets.get(i)))
-            {
-                int num = rocketnum.get(rockets.get(i));
-                rocketnum.put(rockets.get(i),num+1);
-            }
-            else
-            {
-                rocketnum.put(rockets.get(i),1);
+        passes.set(new SharedPass());
+        try {
+            return questions.get();
+        } finally {
+            passes.remove();
+        }
+    }
+
+    /**
+     * Returns the aggregates of the shared pass in progress, else of a new pass.
+     */
+    private LaunchAggregates tallies() {
+        SharedPass pass = passes.get();
+        if (null == pass) {
+            return aggregate();
+        }
+        if (null == pass.aggregates) {
+            pass.aggregates = aggregate();
+        }
+        return pass.aggregates;
+    }
+
+    /**
+     * Returns the first k launches in the order from the shared pass in progress if it
+     * kept that many, else from a scan.
+     */
+    private List<Launch> topLaunches(int k, Comparator<Launch> order, BiFunction<LaunchAggregates, Integer, List<Launch>> kept) {
+        if (null != passes.get()) {
+            LaunchAggregates current = tallies();
+            if (k <= current.getLaunchesKept()) {
+                return kept.apply(current, k);
             }
         }
-        Map<Rocket, Integer> sorted = rocketnum
-                .entrySet()
-                .stream()
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .collect(
-                        toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2,
-                                LinkedHashMap::new));
-        ArrayList<Rocket> returnval = new ArrayList<>();
-        for(Rocket i:sorted.keySet())
-        {
-            returnval.add(i);
+        if (null != pool) {
+            Function<List<Launch>, TopK.Selector<Launch>> selectChunk = chunk -> {
+                TopK.Selector<Launch> selector = new TopK.Selector<>(k, order);
+                chunk.forEach(selector::offer);
+                return selector;
+            };
+            return inChunks(selectChunk, new TopK.Selector<>(k, order), TopK.Selector::merge).result();
+        }
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            return TopK.select(launches, k, order);
+        }
+    }
+
+    /**
+     * Reads launches in chunks, scans each chunk on the pool and merges the results into
+     * the initial one in chunk order. At most twice the parallelism of chunks are held
+     * at once.
+     */
+    private <A> A inChunks(Function<List<Launch>, A> scan, A initial, BinaryOperator<A> merge) {
+        A result = initial;
+        Deque<ForkJoinTask<A>> pending = new ArrayDeque<>();
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            Iterator<Launch> iterator = launches.iterator();
+            while (iterator.hasNext()) {
+                List<Launch> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                }
+                pending.add(pool.submit(() -> scan.apply(chunk)));
+                if (pending.size() >= 2 * pool.getParallelism()) {
+                    result = merge.apply(result, pending.remove().join());
+                }
+            }
+            while (!pending.isEmpty()) {
+                result = merge.apply(result, pending.remove().join());
+            }
+        } finally {
+            pending.forEach(task -> task.cancel(false));
         }
-        return returnval.subList(0,k);
+        return result;
+    }
+
+    /**
+     * Returns the top-k most active rockets, as measured by number of completed launches.
+     *
+     * @param k the number of rockets to be returned.
+     * @return the list of k most active rockets.
+     */
+    public List<Rocket> mostLaunchedRockets(int k) {
+        return metrics.time("miner.mostLaunchedRockets", () -> launchQueries().map(q -> q.mostLaunchedRockets(k))
+                    .orElseGet(() -> tallies().mostLaunchedRockets(k)));
     }
 
     /**
@@ -76,55 +265,8 @@ public class RocketMiner {
      * @return the list of k most reliable ones.
      */
     public List<LaunchServiceProvider> mostReliableLaunchServiceProviders(int k) {
-        Collection<Launch> launch = dao.loadAll(Launch.class);
-        Map<LaunchServiceProvider,Integer> successLaunches = new HashMap<>();
-        Map<LaunchServiceProvider,Integer> totalLaunches = new HashMap<>();
-        for(int i = 0;i<launch.size();i++)
-        {
-            Launch temp = Iterables.get(launch,i);
-            if(temp.getLaunchOutcome() == Launch.LaunchOutcome.SUCCESSFUL)
-            {
-                if(successLaunches.containsKey(temp.getLaunchServiceProvider()))
-                {
-                    int temp1 = successLaunches.get(temp.getLaunchServiceProvider());
-                    successLaunches.put(temp.getLaunchServiceProvider(),temp1+1);
-                }
-                else
-                {
-                    successLaunches.put(temp.getLaunchServiceProvider(),1);
-                }
-
-            }
-            if(totalLaunches.containsKey(temp.getLaunchServiceProvider()))
-            {
-                int temp1 = totalLaunches.get(temp.getLaunchServiceProvider());
-                totalLaunches.put(temp.getLaunchServiceProvider(),temp1+1);
-            }
-            else
-             {
-                 totalLaunches.put(temp.getLaunchServiceProvider(),1);
-             }
-        }
-        Map<LaunchServiceProvider,Float> percentLaunches = new HashMap<>();
-        for(LaunchServiceProvider ls:successLaunches.keySet())
-        {
-            Float percent = ((float)successLaunches.get(ls)/(float)totalLaunches.get(ls)) * 100;
-            percentLaunches.put(ls,percent);
-        }
-        Map<LaunchServiceProvider, Float> sorted = percentLaunches
-                .entrySet()
-                .stream()
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .collect(
-                        toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2,
-                                LinkedHashMap::new));
-        ArrayList<LaunchServiceProvider> returnval = new ArrayList<>();
-
-        for(LaunchServiceProvider i:sorted.keySet())
-        {
-            returnval.add(i);
-        }
-        return returnval.subList(0,k);
+        return metrics.time("miner.mostReliableLaunchServiceProviders", () -> launchQueries().map(q -> q.mostReliableLaunchServiceProviders(k))
+                    .orElseGet(() -> tallies().mostReliableLaunchServiceProviders(k)));
     }
 
     /**
@@ -135,9 +277,9 @@ public class RocketMiner {
      * @return the list of k most recent launches.
      */
     public List<Launch> mostRecentLaunches(int k) {
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        Comparator<Launch> launchDateComparator = Comparator.comparing(Launch::getLaunchDate).reversed();
-        return launches.stream().sorted(launchDateComparator).limit(k).collect(Collectors.toList());
+        return metrics.time("miner.mostRecentLaunches", () -> launchQueries().map(q -> q.mostRecentLaunches(k))
+                    .orElseGet(() -> launchDateIndex().map(index -> index.latest(k))
+                            .orElseGet(() -> topLaunches(k, LaunchAggregates.MOST_RECENT_FIRST, LaunchAggregates::mostRecentLaunches))));
     }
 
     /**
@@ -147,32 +289,9 @@ public class RocketMiner {
              * @param orbit the orbit
      * @return the country who sends the most payload to the orbit
      */
-
     public String dominantCountry(String orbit) {
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        Map<String,Integer> countrymap = new HashMap<>();
-        for(int i=0;i<launches.size();i++)
-        {
-            if(Iterables.get(launches,i).getOrbit().equals(orbit))
-            {
-                if (countrymap.containsKey(Iterables.get(launches,i).getLaunchVehicle().getManufacturer().getCountry()))
-                {
-                    int val = countrymap.get(Iterables.get(launches,i).getLaunchVehicle().getManufacturer().getCountry());
-                    countrymap.put(Iterables.get(launches,i).getLaunchVehicle().getManufacturer().getCountry(),val+1);
-                }
-                else
-                {
-                    countrymap.put(Iterables.get(launches,i).getLaunchVehicle().getManufacturer().getCountry(),1);
-                }
-            }
-        }
-        Optional<Map.Entry<String,Integer>> tempvalue = countrymap.entrySet().stream().max((entry1, entry2) -> entry1.getValue() > entry2.getValue() ? 1 : -1);
-        String returnval = "";
-        if(tempvalue.isPresent())
-        {
-            returnval = tempvalue.get().getKey();
-        }
-        return returnval;
+        return metrics.time("miner.dominantCountry", () -> launchQueries().map(q -> q.dominantCountry(orbit))
+                    .orElseGet(() -> tallies().dominantCountry(orbit)));
     }
 
     /**
@@ -182,11 +301,9 @@ public class RocketMiner {
      * @param k the number of launches to be returned.
      * @return the list of k most expensive launches.
      */
-
     public List<Launch> mostExpensiveLaunches(int k) {
-        Collection<Launch> launches = dao.loadAll(Launch.class);
-        Comparator<Launch> priceComparator = Comparator.comparing(Launch::getPrice).reversed();
-        return launches.stream().sorted(priceComparator).limit(k).collect(Collectors.toList());
+        return metrics.time("miner.mostExpensiveLaunches", () -> launchQueries().map(q -> q.mostExpensiveLaunches(k))
+                    .orElseGet(() -> topLaunches(k, LaunchAggregates.MOST_EXPENSIVE_FIRST, LaunchAggregates::mostExpensiveLaunches)));
     }
 
     /**
@@ -199,40 +316,37 @@ public class RocketMiner {
      * @return the list of k launch service providers who has the highest sales revenue.
      */
     public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int year) {
-        Collection<Launch> launch = dao.loadAll(Launch.class);
-        Map<LaunchServiceProvider, BigDecimal> revenueLsp= new HashMap<>();
-        for(int i = 0;i<launch.size();i++) {
-            Launch temp = Iterables.get(launch, i);
-            int tempDate = temp.getLaunchDate().getYear();
-            if(tempDate == year)
-            {
-                if(revenueLsp.containsKey(temp.getLaunchServiceProvider()))
-                {
-                    BigDecimal temp1 = (revenueLsp.get(temp.getLaunchServiceProvider())).add(temp.getPrice());
-                    revenueLsp.put(temp.getLaunchServiceProvider(),temp1);
-                }
-                else
-                {
-                    revenueLsp.put(temp.getLaunchServiceProvider(),temp.getPrice());
-                }
-            }
+        return metrics.time("miner.highestRevenueLaunchServiceProviders", () -> launchQueries()
+                    .map(q -> q.highestRevenueLaunchServiceProviders(k, year))
+                    .orElseGet(() -> launchDateIndex()
+                            .map(index -> new LaunchAggregates(index.inYear(year), 0).highestRevenueLaunchServiceProviders(k, year))
+                            .orElseGet(() -> tallies().highestRevenueLaunchServiceProviders(k, year))));
+    }
 
+    /**
+     * Streams every launch once into a revenue cube, for callers asking about revenue
+     * over many periods.
+     */
+    public RevenueCube revenueCube() {
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            return new RevenueCube(launches::iterator);
         }
+    }
 
-        Map<LaunchServiceProvider, BigDecimal> sorted = revenueLsp
-                .entrySet()
-                .stream()
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .collect(
-                        toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2,
-                                LinkedHashMap::new));
-        ArrayList<LaunchServiceProvider> returnval = new ArrayList<>();
-
-        for(LaunchServiceProvider i:sorted.keySet())
-        {
-            returnval.add(i);
-        }
-        return returnval.subList(0,k);
+    /**
+     * Returns the k launch service providers with the highest sales revenue over the
+     * years, both included. Launch queries keeping a revenue cube current, such as a
+     * {@link LeaderboardDAO}'s, answer without reading launches; otherwise the launches
+     * of the years are read from the date index, or every launch is scanned.
+     */
+    public List<LaunchServiceProvider> highestRevenueLaunchServiceProviders(int k, int firstYear, int lastYear) {
+        isTrue(firstYear <= lastYear, "firstYear cannot be after lastYear");
+        return metrics.time("miner.highestRevenueLaunchServiceProvidersOverYears", () -> launchQueries()
+                .flatMap(q -> q.highestRevenueOverYears(k, firstYear, lastYear))
+                .orElseGet(() -> launchDateIndex()
+                        .map(index -> new RevenueCube(index.launchesBetween(LocalDate.of(firstYear, 1, 1), LocalDate.of(lastYear, 12, 31))))
+                        .orElseGet(this::revenueCube)
+                        .highestRevenueLaunchServiceProviders(k, firstYear, lastYear)));
     }
 
     /**
@@ -244,54 +358,15 @@ public class RocketMiner {
      * @return the list of k most unreliable ones.
      */
     public List<LaunchServiceProvider> mostUnreliableLaunchServiceProviders(int k) {
-        Collection<Launch> launch = dao.loadAll(Launch.class);
-        Map<LaunchServiceProvider,Integer> failedLaunches = new HashMap<>();
-        Map<LaunchServiceProvider,Integer> totalLaunches = new HashMap<>();
-        for(int i = 0;i<launch.size();i++)
-        {
-            Launch temp = Iterables.get(launch,i);
-            if(temp.getLaunchOutcome() == Launch.LaunchOutcome.FAILED)
-            {
-                if(failedLaunches.containsKey(temp.getLaunchServiceProvider()))
-                {
-                    int temp1 = failedLaunches.get(temp.getLaunchServiceProvider());
-                    failedLaunches.put(temp.getLaunchServiceProvider(),temp1+1);
-                }
-                else
-                {
-                    failedLaunches.put(temp.getLaunchServiceProvider(),1);
-                }
+        return metrics.time("miner.mostUnreliableLaunchServiceProviders", () -> launchQueries().map(q -> q.mostUnreliableLaunchServiceProviders(k))
+                    .orElseGet(() -> tallies().mostUnreliableLaunchServiceProviders(k)));
+    }
 
-            }
-            if(totalLaunches.containsKey(temp.getLaunchServiceProvider()))
-            {
-                int temp1 = totalLaunches.get(temp.getLaunchServiceProvider());
-                totalLaunches.put(temp.getLaunchServiceProvider(),temp1+1);
-            }
-            else
-            {
-                totalLaunches.put(temp.getLaunchServiceProvider(),1);
-            }
-        }
-        Map<LaunchServiceProvider,Float> percentLaunches = new HashMap<>();
-        for(LaunchServiceProvider ls:failedLaunches.keySet())
-        {
-            Float percent = ((float)failedLaunches.get(ls)/(float)totalLaunches.get(ls)) * 100;
-            percentLaunches.put(ls,percent);
-        }
-        Map<LaunchServiceProvider, Float> sorted = percentLaunches
-                .entrySet()
-                .stream()
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .collect(
-                        toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e2,
-                                LinkedHashMap::new));
-        ArrayList<LaunchServiceProvider> returnval = new ArrayList<>();
-
-        for(LaunchServiceProvider i:sorted.keySet())
-        {
-            returnval.add(i);
-        }
-        return returnval.subList(0,k);
+    /**
+     * The aggregates shared by the queries of an {@link #inOnePass(Supplier)} call,
+     * made by the first query needing them.
+     */
+    private static final class SharedPass {
+        private LaunchAggregates aggregates;
     }
 }
@@ -0,0 +1,111 @@
+package rockets.mining;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Selects the k best elements of a sequence with a heap of at most k elements,
+ * i.e. in O(n log k) time and O(k) memory, instead of sorting the whole sequence.
+ * <p>
+ * "Best" is whatever sorts first under the given order. Elements that tie under the
+ * order are ranked by encounter order, so the result is the same as a stable sort
+ * followed by {@code limit(k)}. Fewer than k elements are returned when the sequence
+ * is shorter than k.
+ */
+public final class TopK {
+    private TopK() {
+    }
+
+    public static <T> List<T> select(Iterable<? extends T> elements, int k, Comparator<? super T> order) {
+        Selector<T> selector = new Selector<>(k, order);
+        for (T element : elements) {
+            selector.offer(element);
+        }
+        return selector.result();
+    }
+
+    public static <T> List<T> select(Stream<? extends T> elements, int k, Comparator<? super T> order) {
+        return elements.collect(collector(k, order));
+    }
+
+    /**
+     * Returns a collector keeping the k best elements of a stream. It can be used on
+     * parallel streams: partial results are merged preserving encounter order of ties.
+     */
+    public static <T> Collector<T, ?, List<T>> collector(int k, Comparator<? super T> order) {
+        return Collector.of(
+                () -> new Selector<T>(k, order),
+                Selector::offer,
+                Selector::merge,
+                Selector::result);
+    }
+
+    static final class Selector<T> {
+        private final int k;
+
+        private final Comparator<Ranked<T>> rank;
+
+        private final PriorityQueue<Ranked<T>> heap;
+
+        private long seen;
+
+        Selector(int k, Comparator<? super T> order) {
+            isTrue(k >= 0, "k cannot be negative: %d", k);
+            notNull(order, "order cannot be null");
+            this.k = k;
+            Comparator<Ranked<T>> byElement = (a, b) -> order.compare(a.element, b.element);
+            this.rank = byElement.thenComparingLong(r -> r.sequence);
+            // the worst element kept sits at the head, ready to be evicted
+            this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), rank.reversed());
+        }
+
+        void offer(T element) {
+            offer(new Ranked<>(element, seen++));
+        }
+
+        private void offer(Ranked<T> candidate) {
+            if (heap.size() < k) {
+                heap.add(candidate);
+            } else if (k > 0 && rank.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        Selector<T> merge(Selector<T> later) {
+            for (Ranked<T> ranked : later.heap) {
+                offer(new Ranked<>(ranked.element, seen + ranked.sequence));
+            }
+            seen += later.seen;
+            return this;
+        }
+
+        List<T> result() {
+            List<Ranked<T>> ranked = new ArrayList<>(heap);
+            ranked.sort(rank);
+            List<T> result = new ArrayList<>(ranked.size());
+            for (Ranked<T> r : ranked) {
+                result.add(r.element);
+            }
+            return result;
+        }
+    }
+
+    private static final class Ranked<T> {
+        private final T element;
+
+        private final long sequence;
+
+        private Ranked(T element, long sequence) {
+            this.element = element;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package rockets.model;
+
+/**
+ * The dictionaries of the low-cardinality string attributes of the model. Entities
+ * intern these attributes when they are set or loaded, so that equal values share one
+ * instance and can be grouped by code.
+ */
+public final class Dictionaries {
+    public static final StringDictionary COUNTRIES = new StringDictionary();
+
+    public static final StringDictionary ORBITS = new StringDictionary();
+
+    public static final StringDictionary LAUNCH_SITES = new StringDictionary();
+
+    public static final StringDictionary FUNCTIONS = new StringDictionary();
+
+    private Dictionaries() {
+    }
+}
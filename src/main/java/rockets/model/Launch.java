@@ -1,5 +1,7 @@
 package rockets.model;
 
+import org.neo4j.ogm.annotation.PostLoad;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Objects;
@@ -65,7 +67,7 @@ public class Launch extends Entity {
     }
 
     public void setLaunchSite(String launchSite) {
-        this.launchSite = launchSite;
+        this.launchSite = Dictionaries.LAUNCH_SITES.intern(launchSite);
     }
 
     public String getOrbit() {
@@ -73,7 +75,7 @@ public class Launch extends Entity {
     }
 
     public void setOrbit(String orbit) {
-        this.orbit = orbit;
+        this.orbit = Dictionaries.ORBITS.intern(orbit);
     }
 
     public String getFunction() {
@@ -81,7 +83,7 @@ public class Launch extends Entity {
     }
 
     public void setFunction(String function) {
-        this.function = function;
+        this.function = Dictionaries.FUNCTIONS.intern(function);
     }
 
     public BigDecimal getPrice() {
@@ -100,6 +102,17 @@ public class Launch extends Entity {
         this.launchOutcome = launchOutcome;
     }
 
+    /**
+     * Shares the dictionary instances of the string attributes read from the graph.
+     * Called by the OGM after loading, which only calls public methods.
+     */
+    @PostLoad
+    public void internStrings() {
+        launchSite = Dictionaries.LAUNCH_SITES.intern(launchSite);
+        orbit = Dictionaries.ORBITS.intern(orbit);
+        function = Dictionaries.FUNCTIONS.intern(function);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
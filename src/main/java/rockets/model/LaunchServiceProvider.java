@@ -1,6 +1,8 @@
 package rockets.model;
 
 import com.google.common.collect.Sets;
+import org.neo4j.ogm.annotation.PostLoad;
+
 import java.time.Year;
 import java.util.Objects;
 import java.util.Set;
@@ -19,6 +21,13 @@ public class LaunchServiceProvider extends Entity {
 
     private Set<Rocket> rockets;
 
+    /**
+     * For the OGM, which sets the fields of entities it reads from the graph.
+     */
+    private LaunchServiceProvider() {
+        rockets = Sets.newLinkedHashSet();
+    }
+
     public LaunchServiceProvider(String name, int yearFounded, String country) {
         notNull(name);
         notNull(yearFounded);
@@ -26,7 +35,7 @@ public class LaunchServiceProvider extends Entity {
 
         this.name = name;
         this.yearFounded = yearFounded;
-        this.country = country;
+        this.country = Dictionaries.COUNTRIES.intern(country);
 
         rockets = Sets.newLinkedHashSet();
     }
@@ -64,6 +73,15 @@ public class LaunchServiceProvider extends Entity {
         return Year.now().getValue() > year;
     }
 
+    /**
+     * Shares the dictionary instance of the country read from the graph. Called by
+     * the OGM after loading, which only calls public methods.
+     */
+    @PostLoad
+    public void internStrings() {
+        country = Dictionaries.COUNTRIES.intern(country);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
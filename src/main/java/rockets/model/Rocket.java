@@ -1,6 +1,8 @@
 package rockets.model;
 
 
+import org.neo4j.ogm.annotation.PostLoad;
+
 import java.util.Objects;
 
 import static org.apache.commons.lang3.Validate.notBlank;
@@ -19,6 +21,12 @@ public class Rocket extends Entity {
 
     private String massToOther;
 
+    /**
+     * For the OGM, which sets the fields of entities it reads from the graph.
+     */
+    private Rocket() {
+    }
+
     /**
      * All parameters shouldn't be null.
      *
@@ -32,7 +40,7 @@ public class Rocket extends Entity {
         notNull(manufacturer);
 
         this.name = name;
-        this.country = country;
+        this.country = Dictionaries.COUNTRIES.intern(country);
         this.manufacturer = manufacturer;
     }
 
@@ -76,6 +84,15 @@ public class Rocket extends Entity {
         this.massToOther = massToOther;
     }
 
+    /**
+     * Shares the dictionary instance of the country read from the graph. Called by
+     * the OGM after loading, which only calls public methods.
+     */
+    @PostLoad
+    public void internStrings() {
+        country = Dictionaries.COUNTRIES.intern(country);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,73 @@
+package rockets.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Numbers distinct strings 0, 1, 2... in the order they are first encoded, so that
+ * columns and tallies can store and compare small ints instead of strings, and keeps
+ * one canonical instance of each string for {@link #intern(String) interning}.
+ * <p>
+ * Meant for low-cardinality attributes: codes are never released. Null is encoded as
+ * {@link #NONE}. Thread-safe; lookups of known strings do not lock.
+ */
+public class StringDictionary {
+    public static final int NONE = -1;
+
+    private final ConcurrentMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    private volatile String[] values = new String[16];
+
+    private volatile int size;
+
+    /**
+     * Returns the code of the value, assigning the next one if it is new.
+     */
+    public int encode(String value) {
+        if (null == value) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return null != code ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (null != code) {
+            return code;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        codes.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Returns the code of the value, or {@link #NONE} if it was never encoded.
+     */
+    public int codeOf(String value) {
+        Integer code = null == value ? null : codes.get(value);
+        return null == code ? NONE : code;
+    }
+
+    /**
+     * Returns the string of the code, or null for {@link #NONE}.
+     */
+    public String decode(int code) {
+        return code == NONE ? null : values[code];
+    }
+
+    /**
+     * Returns the canonical instance equal to the value, encoding it if it is new.
+     */
+    public String intern(String value) {
+        return decode(encode(value));
+    }
+
+    public int size() {
+        return size;
+    }
+}
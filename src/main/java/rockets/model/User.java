@@ -1,11 +1,23 @@
 package rockets.model;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Objects;
-import java.util.regex.*;
+import java.util.regex.Pattern;
 
 import static org.apache.commons.lang3.Validate.notBlank;
 
 public class User extends Entity {
+    /**
+     * The same addresses as {@code ([\\w-\\.]+){1,64}@([\\w&&[^_]]+){2,255}.[a-z]{2,}},
+     * without nested repetition, which backtracks exponentially on long invalid input.
+     */
+    private static final Pattern EMAIL = Pattern.compile("^[\\w-\\.]+@[\\w&&[^_]]{2,}.[a-z]{2,}$");
+
+    private static final Pattern PASSWORD = Pattern.compile("(?=.*[a-zA-Z])(?=.*\\d)(?=.*[!@#$%&*()_+=|<>?{}\\[\\]~-]).{8,}");
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z]+");
+
     private String firstName;
 
     private String lastName;
@@ -19,7 +31,7 @@ public class User extends Entity {
     }
 
     public void setFirstName(String firstName) {
-        if(firstName.matches("[a-zA-Z]+"))
+        if(NAME.matcher(firstName).matches())
             this.firstName = firstName;
     }
 
@@ -29,7 +41,7 @@ public class User extends Entity {
 
     public void setLastName(String lastName) {
         notBlank(lastName, "lastName cannot be null or empty");
-        if(lastName.matches("[a-zA-Z]+"))
+        if(NAME.matcher(lastName).matches())
             this.lastName = lastName;
     }
 
@@ -55,9 +67,11 @@ public class User extends Entity {
             this.password = password;
     }
 
-    // match the given password against user's password and return the result
+    // match the given password against user's password and return the result, in time
+    // independent of where the passwords differ
     public boolean isPasswordMatch(String password) {
-        return this.password.equals(password.trim());
+        return MessageDigest.isEqual(this.password.getBytes(StandardCharsets.UTF_8),
+                password.trim().getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -84,14 +98,12 @@ public class User extends Entity {
 
     public static boolean isValidEmailAddress(String email)
     {
-        Pattern p = Pattern.compile("^([\\w-\\.]+){1,64}@([\\w&&[^_]]+){2,255}.[a-z]{2,}$");
-        Matcher m = p.matcher(email);
-        return m.find();
+        return EMAIL.matcher(email).find();
     }
 
     public static boolean isValidPassword(String password)
     {
-        return password.matches("(?=.*[a-zA-Z])(?=.*\\d)(?=.*[!@#$%&*()_+=|<>?{}\\[\\]~-]).{8,}");
+        return PASSWORD.matcher(password).matches();
     }
 }
 
@@ -0,0 +1,205 @@
+package rockets.users;
+
+import rockets.dataaccess.DAO;
+import rockets.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.Validate.isTrue;
+import static org.apache.commons.lang3.Validate.notNull;
+
+/**
+ * Registers and authenticates users, looking them up by email in an index kept in
+ * memory instead of querying the {@link DAO}. The index starts from the users already
+ * in the DAO and follows the registrations, updates and deletions made through the
+ * directory; users written to the DAO directly are only found after {@link #rebuild()}.
+ * Registrations still check the DAO, so they never overwrite a user saved elsewhere.
+ * <p>
+ * Thread-safe if the DAO is: lookups and authentication never lock, and registrations
+ * only wait for each other when they claim the same email.
+ */
+public class UserDirectory {
+    /**
+     * Compared against when the email is unknown, so a failed login takes as long
+     * whether or not the user exists.
+     */
+    private static final byte[] NO_PASSWORD = "no password".getBytes(StandardCharsets.UTF_8);
+
+    private final DAO dao;
+
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+
+    private final Map<Long, String> emailsById = new ConcurrentHashMap<>();
+
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+
+    public UserDirectory(DAO dao) {
+        notNull(dao, "dao cannot be null");
+        this.dao = dao;
+        rebuild();
+    }
+
+    /**
+     * Reindexes every user of the DAO.
+     */
+    public synchronized void rebuild() {
+        usersByEmail.clear();
+        emailsById.clear();
+        try (Stream<User> users = dao.stream(User.class)) {
+            users.filter(user -> null != user.getEmail()).forEach(this::index);
+        }
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return null == email ? Optional.empty() : Optional.ofNullable(usersByEmail.get(email));
+    }
+
+    public int size() {
+        return usersByEmail.size();
+    }
+
+    /**
+     * Saves a new user.
+     *
+     * @throws IllegalArgumentException if the email or password is missing or invalid,
+     *                                  or the email is already registered
+     */
+    public User register(User user) {
+        validate(user);
+        claim(user);
+        try {
+            User saved = dao.createOrUpdate(user);
+            index(saved);
+            return saved;
+        } finally {
+            claimed.remove(user.getEmail());
+        }
+    }
+
+    /**
+     * Validates every user, then saves them all with one
+     * {@link DAO#createOrUpdateAll(Collection)} call. Nothing is saved if any user is
+     * invalid or any email is already registered or repeated in the batch.
+     */
+    public List<User> registerAll(Collection<User> users) {
+        notNull(users, "users cannot be null");
+        Set<String> emails = new HashSet<>();
+        for (User user : users) {
+            validate(user);
+            isTrue(emails.add(user.getEmail()), "%s is registered twice", user.getEmail());
+        }
+        List<String> claimedEmails = new ArrayList<>(emails.size());
+        try {
+            for (User user : users) {
+                claim(user);
+                claimedEmails.add(user.getEmail());
+            }
+            List<User> saved = dao.createOrUpdateAll(users);
+            saved.forEach(this::index);
+            return saved;
+        } finally {
+            claimed.removeAll(claimedEmails);
+        }
+    }
+
+    /**
+     * Saves changes to a registered user, moving it in the index if its email changed.
+     *
+     * @throws IllegalArgumentException if the user is not registered, or its new email
+     *                                  is taken
+     */
+    public User update(User user) {
+        notNull(user, "user cannot be null");
+        isTrue(null != user.getId() && emailsById.containsKey(user.getId()), "%s is not registered", user);
+        validate(user);
+        String email = user.getEmail();
+        String previous = emailsById.get(user.getId());
+        boolean moved = !email.equals(previous);
+        if (moved) {
+            claim(user);
+        }
+        try {
+            User saved = dao.createOrUpdate(user);
+            if (moved) {
+                usersByEmail.remove(previous);
+            }
+            index(saved);
+            return saved;
+        } finally {
+            if (moved) {
+                claimed.remove(email);
+            }
+        }
+    }
+
+    public void delete(User user) {
+        notNull(user, "user cannot be null");
+        dao.delete(user);
+        String email = null == user.getId() ? null : emailsById.remove(user.getId());
+        if (null == email) {
+            email = user.getEmail();
+        }
+        if (null != email) {
+            usersByEmail.remove(email);
+        }
+    }
+
+    /**
+     * Returns the user with the email if the password matches, comparing passwords in
+     * time independent of where they differ.
+     */
+    public Optional<User> authenticate(String email, String password) {
+        if (null == email || null == password) {
+            return Optional.empty();
+        }
+        User user = usersByEmail.get(email);
+        if (null == user || null == user.getPassword()) {
+            MessageDigest.isEqual(NO_PASSWORD, password.trim().getBytes(StandardCharsets.UTF_8));
+            return Optional.empty();
+        }
+        return user.isPasswordMatch(password) ? Optional.of(user) : Optional.empty();
+    }
+
+    private static void validate(User user) {
+        notNull(user, "user cannot be null");
+        isTrue(null != user.getEmail() && User.isValidEmailAddress(user.getEmail()), "%s has no valid email", user);
+        isTrue(null != user.getPassword() && User.isValidPassword(user.getPassword()), "%s has no valid password", user);
+    }
+
+    /**
+     * Reserves the user's email for a registration in progress, checking the DAO for a
+     * user saved with it outside this directory, which saving would overwrite.
+     */
+    private void claim(User user) {
+        String email = user.getEmail();
+        isTrue(claimed.add(email), "%s is already being registered", email);
+        try {
+            isTrue(!usersByEmail.containsKey(email), "%s is already registered", email);
+            Optional<User> stored = dao.findExisting(user);
+            if (stored.isPresent() && !stored.get().getId().equals(user.getId())) {
+                index(stored.get());
+                throw new IllegalArgumentException(email + " is already registered");
+            }
+        } catch (RuntimeException e) {
+            claimed.remove(email);
+            throw e;
+        }
+    }
+
+    private void index(User user) {
+        usersByEmail.put(user.getEmail(), user);
+        if (null != user.getId()) {
+            emailsById.put(user.getId(), user.getEmail());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package rockets.dataaccess;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProjectionUnitTest {
+    private DAO dao;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+    private Launch launch;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new InMemoryDAO();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        rocket = new Rocket("F9", "USA", spacex);
+        launch = new Launch();
+        launch.setLaunchDate(LocalDate.of(2017, 1, 1));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(spacex);
+        launch.setPrice(BigDecimal.valueOf(100));
+        launch.setPayload(Collections.singleton("Iridium"));
+        launch.setLaunchOutcome(Launch.LaunchOutcome.SUCCESSFUL);
+        dao.createOrUpdate(launch);
+    }
+
+    @Test
+    public void shouldProjectPropertiesAndRelationshipIds() {
+        Projection projection = Projection.of(Launch.class,
+                "launchDate", "price", "launchOutcome", "launchServiceProvider", "launchVehicle.manufacturer.country");
+        EntityView view = dao.project(projection).findFirst().get();
+
+        assertEquals(launch.getId(), view.getId());
+        assertEquals(LocalDate.of(2017, 1, 1), view.get("launchDate", LocalDate.class));
+        assertEquals(BigDecimal.valueOf(100), view.get("price"));
+        assertEquals(Launch.LaunchOutcome.SUCCESSFUL, view.get("launchOutcome"));
+        assertEquals(spacex.getId(), view.get("launchServiceProvider"));
+        assertEquals("USA", view.get("launchVehicle.manufacturer.country"));
+        assertEquals(projection.getPaths(), view.getValues().keySet().stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void shouldReturnReadOnlyViews() {
+        EntityView view = dao.project(Projection.of(Launch.class, "payload")).findFirst().get();
+        Set<?> payload = view.get("payload", Set.class);
+        assertEquals(Collections.singleton("Iridium"), payload);
+        assertThrows(UnsupportedOperationException.class, () -> payload.clear());
+        assertThrows(UnsupportedOperationException.class, () -> view.getValues().put("orbit", "LEO"));
+        assertThrows(IllegalArgumentException.class, () -> view.get("orbit"));
+    }
+
+    @Test
+    public void shouldProjectPathsThroughMissingRelationshipsAsNull() {
+        Launch unassigned = new Launch();
+        unassigned.setLaunchDate(LocalDate.of(2018, 1, 1));
+        dao.createOrUpdate(unassigned);
+        EntityView view = Projection.of(Launch.class, "launchVehicle.name").viewOf(unassigned);
+        assertNull(view.get("launchVehicle.name"));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenPathIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> Projection.of(Launch.class, "rocket"));
+        assertThrows(IllegalArgumentException.class, () -> Projection.of(Launch.class, "launchDate.year"));
+        assertThrows(IllegalArgumentException.class, () -> Projection.of(Launch.class, "payload.length"));
+        assertThrows(IllegalArgumentException.class, () -> Projection.of(LaunchServiceProvider.class, "rockets"));
+        assertThrows(IllegalArgumentException.class, () -> Projection.of(Launch.class));
+        assertThrows(NullPointerException.class, () -> Projection.of(null, "launchDate"));
+    }
+
+    @Test
+    public void shouldConvertStoredValuesToFieldTypes() {
+        Projection projection = Projection.of(Launch.class, "launchDate", "price", "launchOutcome", "launchVehicle", "payload");
+        Map<String, Object> stored = new HashMap<>();
+        stored.put("launchDate", "2017-01-01");
+        stored.put("price", "100");
+        stored.put("launchOutcome", "FAILED");
+        stored.put("launchVehicle", 7);
+        stored.put("payload", new String[]{"Iridium", "Iridium"});
+        EntityView view = projection.viewOf(3L, stored);
+
+        assertEquals(LocalDate.of(2017, 1, 1), view.get("launchDate"));
+        assertEquals(new BigDecimal("100"), view.get("price"));
+        assertEquals(Launch.LaunchOutcome.FAILED, view.get("launchOutcome"));
+        assertEquals(7L, view.get("launchVehicle"));
+        assertEquals(Collections.singleton("Iridium"), view.get("payload"));
+        assertEquals(Arrays.asList("launchDate", "price", "launchOutcome", "launchVehicle", "payload"), projection.getPaths());
+    }
+}
@@ -0,0 +1,134 @@
+package rockets.dataaccess.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Entity;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncDAOUnitTest {
+    private BlockingDAO dao;
+    private AsyncDAO async;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new BlockingDAO();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        rocket = new Rocket("F9", "USA", spacex);
+        dao.createOrUpdate(rocket);
+        async = new AsyncDAO(dao);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dao.release.countDown();
+        async.close();
+    }
+
+    @Test
+    public void shouldRunCallsOnDelegate() throws Exception {
+        dao.release.countDown();
+        assertSame(rocket, async.load(Rocket.class, rocket.getId()).get(5, TimeUnit.SECONDS));
+        assertEquals(1, async.loadAll(LaunchServiceProvider.class).get(5, TimeUnit.SECONDS).size());
+        async.delete(rocket).get(5, TimeUnit.SECONDS);
+        assertNull(async.call(d -> d.load(Rocket.class, rocket.getId())).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldOverlapIndependentLoads() throws Exception {
+        dao.entered = new CountDownLatch(2);
+        CompletableFuture<Rocket> loadedRocket = async.load(Rocket.class, rocket.getId());
+        CompletableFuture<LaunchServiceProvider> loadedProvider = async.load(LaunchServiceProvider.class, spacex.getId());
+        assertTrue(dao.entered.await(5, TimeUnit.SECONDS), "both loads should run at once");
+        dao.release.countDown();
+        assertEquals("USA", loadedRocket.thenCombine(loadedProvider, (r, p) -> p.getCountry()).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldFailAndInterruptCallsThatTimeOut() throws Exception {
+        async.setTimeout(50, TimeUnit.MILLISECONDS);
+        CompletableFuture<Rocket> loaded = async.load(Rocket.class, rocket.getId());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> loaded.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException);
+        assertTrue(dao.interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldInterruptCancelledCalls() throws Exception {
+        CompletableFuture<Rocket> loaded = async.load(Rocket.class, rocket.getId());
+        assertTrue(dao.entered.await(5, TimeUnit.SECONDS));
+        assertTrue(loaded.cancel(true));
+        assertTrue(dao.interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldRejectCallsWhenExecutorIsSaturated() throws Exception {
+        ExecutorService executor = AsyncDAO.newExecutor(1, 1);
+        try {
+            AsyncDAO bounded = new AsyncDAO(dao, executor);
+            CompletableFuture<Rocket> running = bounded.load(Rocket.class, rocket.getId());
+            CompletableFuture<Rocket> queued = bounded.load(Rocket.class, rocket.getId());
+            CompletableFuture<Rocket> rejected = bounded.load(Rocket.class, rocket.getId());
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+            dao.release.countDown();
+            assertSame(rocket, running.get(5, TimeUnit.SECONDS));
+            assertSame(rocket, queued.get(5, TimeUnit.SECONDS));
+            bounded.close();
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSettingsAreInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> AsyncDAO.newExecutor(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> AsyncDAO.newExecutor(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> async.setTimeout(-1, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> new AsyncDAO(null));
+    }
+
+    /**
+     * Holds every load until released, recording loads that were interrupted.
+     */
+    private static class BlockingDAO extends InMemoryDAO {
+        private volatile CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public synchronized <T extends Entity> T createOrUpdate(T entity) {
+            return super.createOrUpdate(entity);
+        }
+
+        @Override
+        public <T extends Entity> T load(Class<T> clazz, Long id) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            synchronized (this) {
+                return super.load(clazz, id);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package rockets.dataaccess.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingDAOUnitTest {
+    private DAO delegate;
+    private CachingDAO dao;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = spy(new InMemoryDAO());
+        dao = new CachingDAO(delegate);
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        rocket = new Rocket("F9", "USA", spacex);
+        delegate.createOrUpdate(rocket);
+    }
+
+    @Test
+    public void shouldLoadEachEntityFromDelegateOnce() {
+        for (int i = 0; i < 10; i++) {
+            assertSame(rocket, dao.load(Rocket.class, rocket.getId()));
+        }
+        verify(delegate, times(1)).load(Rocket.class, rocket.getId());
+        assertEquals(9, dao.stats(Rocket.class).hitCount());
+        assertEquals(1, dao.stats().missCount());
+        assertEquals(0.9, dao.stats(Rocket.class).hitRate(), 1e-9);
+    }
+
+    @Test
+    public void shouldNotCacheMissingEntities() {
+        assertNull(dao.load(Rocket.class, 42L));
+        assertNull(dao.load(Rocket.class, 42L));
+        verify(delegate, times(2)).load(Rocket.class, 42L);
+    }
+
+    @Test
+    public void shouldInvalidateSavedEntityAndItsReferences() {
+        dao.load(Rocket.class, rocket.getId());
+        dao.load(LaunchServiceProvider.class, spacex.getId());
+
+        Launch launch = new Launch();
+        launch.setLaunchDate(LocalDate.of(2017, 1, 1));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(spacex);
+        dao.createOrUpdate(launch);
+
+        dao.load(Rocket.class, rocket.getId());
+        dao.load(LaunchServiceProvider.class, spacex.getId());
+        verify(delegate, times(2)).load(Rocket.class, rocket.getId());
+        verify(delegate, times(2)).load(LaunchServiceProvider.class, spacex.getId());
+    }
+
+    @Test
+    public void shouldNotCacheEntitySavedWhileLoading() {
+        doAnswer(invocation -> {
+            Object stale = invocation.callRealMethod();
+            dao.createOrUpdate(rocket);
+            return stale;
+        }).doCallRealMethod().when(delegate).load(Rocket.class, rocket.getId());
+
+        dao.load(Rocket.class, rocket.getId());
+        dao.load(Rocket.class, rocket.getId());
+        dao.load(Rocket.class, rocket.getId());
+        verify(delegate, times(2)).load(Rocket.class, rocket.getId());
+    }
+
+    @Test
+    public void shouldInvalidateDeletedEntity() {
+        dao.load(Rocket.class, rocket.getId());
+        dao.delete(rocket);
+        assertNull(dao.load(Rocket.class, rocket.getId()));
+    }
+
+    @Test
+    public void shouldEvictEntitiesBeyondMaximumSize() {
+        dao.setMaximumSize(Rocket.class, 1);
+        Rocket another = delegate.createOrUpdate(new Rocket("F5", "USA", spacex));
+        dao.load(Rocket.class, rocket.getId());
+        dao.load(Rocket.class, another.getId());
+        dao.load(Rocket.class, rocket.getId());
+        verify(delegate, times(2)).load(Rocket.class, rocket.getId());
+        assertEquals(2, dao.stats(Rocket.class).evictionCount());
+    }
+
+    @Test
+    public void shouldBoundCacheByWeight() {
+        dao.setMaximumWeight(Rocket.class, 5, r -> r.getName().length());
+        Rocket another = delegate.createOrUpdate(new Rocket("Falcon Heavy", "USA", spacex));
+        dao.load(Rocket.class, another.getId());
+        dao.load(Rocket.class, another.getId());
+        verify(delegate, times(2)).load(Rocket.class, another.getId());
+        dao.load(Rocket.class, rocket.getId());
+        dao.load(Rocket.class, rocket.getId());
+        verify(delegate, times(1)).load(Rocket.class, rocket.getId());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSettingsAreInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> dao.setMaximumSize(Rocket.class, -1));
+        assertThrows(IllegalArgumentException.class, () -> dao.setTimeToLive(Rocket.class, -1, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> new CachingDAO(null));
+    }
+}
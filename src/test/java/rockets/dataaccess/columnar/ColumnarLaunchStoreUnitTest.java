@@ -0,0 +1,109 @@
+package rockets.dataaccess.columnar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.dataset.LaunchDatasetGenerator;
+import rockets.mining.LaunchAggregates;
+import rockets.mining.RocketMiner;
+import rockets.model.Dictionaries;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarLaunchStoreUnitTest {
+    private DAO dao;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new InMemoryDAO();
+    }
+
+    private Launch launch(Rocket vehicle, LocalDate date, String orbit, BigDecimal price, Launch.LaunchOutcome outcome) {
+        Launch launch = new Launch();
+        launch.setLaunchVehicle(vehicle);
+        launch.setLaunchServiceProvider(vehicle.getManufacturer());
+        launch.setLaunchDate(date);
+        launch.setOrbit(orbit);
+        launch.setLaunchSite("LC-39A");
+        launch.setPrice(price);
+        launch.setLaunchOutcome(outcome);
+        return dao.createOrUpdate(launch);
+    }
+
+    @Test
+    public void shouldAnswerLikeAScanOverTheSameLaunches() {
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 20000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+        generator.writeTo(dao);
+
+        LaunchAggregates scan = new LaunchAggregates(dao.loadAll(Launch.class));
+        ColumnarLaunchStore store = ColumnarLaunchStore.snapshot(dao);
+        RocketMiner miner = new RocketMiner(dao, store);
+        assertEquals(20000, store.size());
+        assertEquals(scan.mostLaunchedRockets(5), miner.mostLaunchedRockets(5));
+        assertEquals(scan.mostReliableLaunchServiceProviders(5), miner.mostReliableLaunchServiceProviders(5));
+        assertEquals(scan.mostUnreliableLaunchServiceProviders(5), miner.mostUnreliableLaunchServiceProviders(5));
+        assertEquals(scan.highestRevenueLaunchServiceProviders(5, 2000), miner.highestRevenueLaunchServiceProviders(5, 2000));
+        assertEquals(scan.mostRecentLaunches(10), miner.mostRecentLaunches(10));
+        assertEquals(scan.mostExpensiveLaunches(10), miner.mostExpensiveLaunches(10));
+        assertEquals(scan.dominantCountry("LEO"), miner.dominantCountry("LEO"));
+    }
+
+    @Test
+    public void shouldHandleMissingValuesAndTies() {
+        LaunchServiceProvider spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        LaunchServiceProvider esa = new LaunchServiceProvider("ESA", 1975, "Europe");
+        Rocket falcon = new Rocket("F9", "USA", spacex);
+        Rocket ariane = new Rocket("Ariane5", "Europe", esa);
+        Launch first = launch(ariane, LocalDate.of(2017, 1, 1), "GTO", BigDecimal.valueOf(100.505), Launch.LaunchOutcome.FAILED);
+        Launch second = launch(falcon, LocalDate.of(2017, 1, 1), "GTO", BigDecimal.valueOf(100.51), Launch.LaunchOutcome.SUCCESSFUL);
+        Launch undated = launch(falcon, null, "LEO", null, null);
+
+        ColumnarLaunchStore store = ColumnarLaunchStore.snapshot(dao);
+        assertEquals(Arrays.asList(first, second), store.mostRecentLaunches(5));
+        assertEquals(Arrays.asList(first, second), store.mostExpensiveLaunches(5));
+        assertEquals(Arrays.asList(falcon, ariane), store.mostLaunchedRockets(5));
+        assertEquals(Arrays.asList(spacex), store.mostReliableLaunchServiceProviders(5));
+        assertEquals(Arrays.asList(esa), store.mostUnreliableLaunchServiceProviders(5));
+        assertEquals(Arrays.asList(esa, spacex), store.highestRevenueLaunchServiceProviders(5, 2017));
+        assertEquals("Europe", store.dominantCountry("GTO"));
+        assertEquals("USA", store.dominantCountry("LEO"));
+        assertEquals("", store.dominantCountry("SSO"));
+        assertEquals(Dictionaries.LAUNCH_SITES.codeOf("LC-39A"), store.launchSiteCode(2));
+        assertNotNull(undated.getId());
+    }
+
+    @Test
+    public void shouldNotSeeLaterWrites() {
+        ColumnarLaunchStore store = ColumnarLaunchStore.snapshot(dao);
+        launch(new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA")),
+                LocalDate.of(2017, 1, 1), "LEO", BigDecimal.ONE, Launch.LaunchOutcome.SUCCESSFUL);
+        assertEquals(0, store.size());
+        assertTrue(store.mostLaunchedRockets(5).isEmpty());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenKIsNegative() {
+        ColumnarLaunchStore store = ColumnarLaunchStore.snapshot(dao);
+        assertThrows(IllegalArgumentException.class, () -> store.mostRecentLaunches(-1));
+    }
+
+    @Test
+    public void shouldSelectTopIndicesLikeASort() {
+        int[] values = {5, 3, 9, 3, 7, 9, 1, 0, 5};
+        assertArrayEquals(new int[]{2, 5, 4, 0}, IndexSelection.top(values.length, 4,
+                (a, b) -> Integer.compare(values[b], values[a]), i -> true));
+        assertArrayEquals(new int[]{6, 1, 3}, IndexSelection.top(values.length, 3,
+                (a, b) -> Integer.compare(values[a], values[b]), i -> values[i] > 0));
+        assertEquals(0, IndexSelection.top(values.length, 0, (a, b) -> 0, i -> true).length);
+    }
+}
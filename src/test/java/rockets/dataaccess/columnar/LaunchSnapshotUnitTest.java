@@ -0,0 +1,147 @@
+package rockets.dataaccess.columnar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.dataset.LaunchDatasetGenerator;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchSnapshotUnitTest {
+    private DAO dao;
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dao = new InMemoryDAO();
+        directory = Files.createTempDirectory("launch-snapshot");
+        file = directory.resolve("launches.snapshot");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void shouldAnswerLikeTheStoreItWasWrittenFrom() throws IOException {
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 20000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+        generator.writeTo(dao);
+        ColumnarLaunchStore written = ColumnarLaunchStore.snapshot(dao);
+
+        LaunchSnapshot.write(written, file);
+        ColumnarLaunchStore read = LaunchSnapshot.read(file, dao);
+
+        assertEquals(written.size(), read.size());
+        assertEquals(written.mostLaunchedRockets(5), read.mostLaunchedRockets(5));
+        assertEquals(written.mostReliableLaunchServiceProviders(5), read.mostReliableLaunchServiceProviders(5));
+        assertEquals(written.mostUnreliableLaunchServiceProviders(5), read.mostUnreliableLaunchServiceProviders(5));
+        assertEquals(written.highestRevenueLaunchServiceProviders(5, 2000), read.highestRevenueLaunchServiceProviders(5, 2000));
+        assertEquals(written.mostRecentLaunches(10), read.mostRecentLaunches(10));
+        assertEquals(written.mostExpensiveLaunches(10), read.mostExpensiveLaunches(10));
+        assertEquals(written.dominantCountry("LEO"), read.dominantCountry("LEO"));
+        assertEquals(written.launchSiteCode(42), read.launchSiteCode(42));
+    }
+
+    @Test
+    public void shouldKeepMissingValuesAndEntityDetails() throws IOException {
+        LaunchServiceProvider spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        spacex.setHeadquarters("Hawthorne");
+        spacex.setWikilink("https://en.wikipedia.org/wiki/SpaceX");
+        LaunchServiceProvider builder = new LaunchServiceProvider("Builder", 1990, "Japan");
+        Launch launch = new Launch();
+        Rocket h2a = new Rocket("H-IIA", "Japan", builder);
+        h2a.setMassToLEO("15000");
+        h2a.setMassToGTO("6000");
+        launch.setLaunchVehicle(h2a);
+        launch.setLaunchServiceProvider(spacex);
+        dao.createOrUpdate(launch);
+        Launch priced = new Launch();
+        priced.setLaunchVehicle(new Rocket("F9", "USA", spacex));
+        priced.setLaunchServiceProvider(spacex);
+        priced.setLaunchDate(LocalDate.of(2017, 1, 1));
+        priced.setPrice(BigDecimal.valueOf(62_000_000));
+        priced.setLaunchOutcome(Launch.LaunchOutcome.SUCCESSFUL);
+        priced.setOrbit("Snapshot orbit");
+        dao.createOrUpdate(priced);
+
+        LaunchSnapshot.write(ColumnarLaunchStore.snapshot(dao), file);
+        ColumnarLaunchStore read = LaunchSnapshot.read(file, dao);
+
+        assertEquals(Arrays.asList(priced), read.mostRecentLaunches(5));
+        assertEquals(Arrays.asList(priced), read.mostExpensiveLaunches(5));
+        LaunchServiceProvider readSpacex = read.mostReliableLaunchServiceProviders(1).get(0);
+        assertEquals(spacex, readSpacex);
+        assertEquals(spacex.getId(), readSpacex.getId());
+        assertEquals("Hawthorne", readSpacex.getHeadquarters());
+        assertEquals(spacex.getWikilink(), readSpacex.getWikilink());
+        Rocket readRocket = read.mostLaunchedRockets(2).get(0);
+        assertEquals(launch.getLaunchVehicle(), readRocket);
+        assertEquals(builder, readRocket.getManufacturer());
+        assertEquals("15000", readRocket.getMassToLEO());
+        assertEquals("6000", readRocket.getMassToGTO());
+        assertNull(readRocket.getMassToOther());
+        assertEquals("USA", read.dominantCountry("Snapshot orbit"));
+        assertEquals(ColumnarLaunchStore.NONE, read.launchSiteCode(0));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenFileIsNotASnapshot() throws IOException {
+        Files.write(file, "name,yearFounded\n".getBytes("UTF-8"));
+        assertThrows(IOException.class, () -> LaunchSnapshot.read(file, dao));
+    }
+
+    @Test
+    public void shouldStartWarmFromSnapshotAndCatchUpOnRefresh() throws IOException {
+        Rocket falcon = new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"));
+        Launch first = new Launch();
+        first.setLaunchVehicle(falcon);
+        first.setLaunchDate(LocalDate.of(2017, 1, 1));
+        dao.createOrUpdate(first);
+
+        try (WarmLaunchStore cold = new WarmLaunchStore(dao, file)) {
+            assertTrue(Files.exists(file));
+            assertEquals(1, cold.getStore().size());
+        }
+
+        Launch second = new Launch();
+        second.setLaunchVehicle(falcon);
+        second.setLaunchDate(LocalDate.of(2018, 1, 1));
+        dao.createOrUpdate(second);
+
+        try (WarmLaunchStore warm = new WarmLaunchStore(dao, file)) {
+            assertEquals(Arrays.asList(first), warm.mostRecentLaunches(5));
+            warm.refresh();
+            assertEquals(Arrays.asList(second, first), warm.mostRecentLaunches(5));
+        }
+        assertEquals(2, LaunchSnapshot.read(file, dao).size());
+    }
+
+    @Test
+    public void shouldFallBackToDAOWhenSnapshotIsUnreadable() throws IOException {
+        Files.write(file, new byte[]{1, 2, 3});
+        try (WarmLaunchStore store = new WarmLaunchStore(dao, file)) {
+            assertEquals(0, store.getStore().size());
+        }
+        assertEquals(0, LaunchSnapshot.read(file, dao).size());
+    }
+}
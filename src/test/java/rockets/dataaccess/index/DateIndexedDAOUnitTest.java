@@ -0,0 +1,152 @@
+package rockets.dataaccess.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.dataset.LaunchDatasetGenerator;
+import rockets.mining.LaunchAggregates;
+import rockets.mining.RocketMiner;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DateIndexedDAOUnitTest {
+    private DAO delegate;
+    private DateIndexedDAO dao;
+    private LaunchDateIndex index;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = spy(new InMemoryDAO());
+        dao = new DateIndexedDAO(delegate);
+        index = dao.launchDateIndex().get();
+        rocket = new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"));
+    }
+
+    private Launch launch(LocalDate date) {
+        Launch launch = new Launch();
+        launch.setLaunchDate(date);
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(rocket.getManufacturer());
+        return dao.createOrUpdate(launch);
+    }
+
+    @Test
+    public void shouldFindLaunchesBetweenDatesInclusive() {
+        Launch march = launch(LocalDate.of(2017, 3, 1));
+        Launch january = launch(LocalDate.of(2017, 1, 1));
+        Launch february = launch(LocalDate.of(2017, 2, 1));
+        Launch nextYear = launch(LocalDate.of(2018, 1, 1));
+        launch(null);
+
+        assertEquals(Arrays.asList(january, february), index.launchesBetween(LocalDate.of(2017, 1, 1), LocalDate.of(2017, 2, 1)));
+        assertEquals(Arrays.asList(january, february, march), index.inYear(2017));
+        assertEquals(Collections.singletonList(nextYear), index.inYear(2018));
+        assertTrue(index.launchesBetween(LocalDate.of(2017, 3, 2), LocalDate.of(2017, 12, 31)).isEmpty());
+        assertTrue(index.launchesBetween(LocalDate.of(2018, 1, 1), LocalDate.of(2017, 1, 1)).isEmpty());
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    public void shouldReturnLatestLaunchesWithTiesInIndexOrderAndUndatedLast() {
+        Launch first = launch(LocalDate.of(2017, 1, 1));
+        Launch undated = launch(null);
+        Launch second = launch(LocalDate.of(2017, 1, 1));
+        Launch latest = launch(LocalDate.of(2017, 6, 1));
+
+        assertEquals(Arrays.asList(latest, first), index.latest(2));
+        assertEquals(Arrays.asList(latest, first, second, undated), index.latest(10));
+        assertTrue(index.latest(0).isEmpty());
+    }
+
+    @Test
+    public void shouldMoveUpdatedLaunchesAndDropDeletedOnes() {
+        Launch launch = launch(LocalDate.of(2017, 1, 1));
+        Launch other = launch(LocalDate.of(2016, 1, 1));
+        launch.setLaunchDate(LocalDate.of(2015, 1, 1));
+        dao.createOrUpdate(launch);
+        assertTrue(index.inYear(2017).isEmpty());
+        assertEquals(Arrays.asList(launch), index.inYear(2015));
+
+        dao.delete(other);
+        assertEquals(Arrays.asList(launch), index.latest(5));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void shouldAnswerDateBoundedMinerQueriesFromIndex() {
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 5000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+        generator.writeTo(dao);
+        LaunchAggregates scan = new LaunchAggregates(delegate.loadAll(Launch.class));
+
+        RocketMiner miner = new RocketMiner(dao);
+        reset(delegate);
+        assertEquals(scan.mostRecentLaunches(20), miner.mostRecentLaunches(20));
+        assertEquals(scan.highestRevenueLaunchServiceProviders(5, 2000), miner.highestRevenueLaunchServiceProviders(5, 2000));
+        verify(delegate, never()).stream(Launch.class);
+        verify(delegate, never()).loadAll(Launch.class);
+
+        List<Launch> expected = delegate.loadAll(Launch.class).stream()
+                .filter(l -> l.getLaunchDate().getYear() == 2000)
+                .sorted((a, b) -> a.getLaunchDate().compareTo(b.getLaunchDate()))
+                .collect(Collectors.toList());
+        assertEquals(expected, index.inYear(2000));
+    }
+
+    @Test
+    public void shouldRebuildIndexInDateOrder() {
+        Launch march = launch(LocalDate.of(2017, 3, 1));
+        Launch undated = launch(null);
+        Launch january = launch(LocalDate.of(2017, 1, 1));
+        Launch sameDay = launch(LocalDate.of(2017, 1, 1));
+        index.clear();
+
+        dao.rebuild();
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(january, sameDay, march), index.inYear(2017));
+        assertEquals(Arrays.asList(march, january, sameDay, undated), index.latest(4));
+
+        index.reindex(Arrays.asList(march, january, march));
+        assertEquals(Arrays.asList(january, march), index.inYear(2017));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void shouldAnswerMinerFromIndexWhenDelegateHasNoLaunchQueries() {
+        Launch launch = launch(LocalDate.of(2017, 1, 1));
+        launch.setPrice(BigDecimal.TEN);
+        dao.createOrUpdate(launch);
+        clearInvocations(delegate);
+
+        RocketMiner miner = new RocketMiner(dao);
+        assertEquals(Collections.singletonList(launch), miner.mostRecentLaunches(1));
+        assertEquals(Collections.singletonList(rocket.getManufacturer()), miner.highestRevenueLaunchServiceProviders(1, 2017));
+        verify(delegate, never()).stream(Launch.class);
+
+        LaunchQueries queries = mock(LaunchQueries.class);
+        when(delegate.launchQueries()).thenReturn(Optional.of(queries));
+        miner.mostRecentLaunches(1);
+        verify(queries).mostRecentLaunches(1);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenKIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> index.latest(-1));
+    }
+}
@@ -0,0 +1,64 @@
+package rockets.dataaccess.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryDAOUnitTest {
+    private DAO dao;
+    private LaunchServiceProvider spacex;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new InMemoryDAO();
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        rocket = new Rocket("F9", "USA", spacex);
+    }
+
+    @Test
+    public void shouldSaveReferencedEntitiesWithLaunch() {
+        Launch launch = new Launch();
+        launch.setLaunchDate(LocalDate.of(2017, 1, 1));
+        launch.setLaunchVehicle(rocket);
+        launch.setLaunchServiceProvider(spacex);
+        dao.createOrUpdate(launch);
+
+        assertNotNull(launch.getId());
+        assertNotNull(rocket.getId());
+        assertNotNull(spacex.getId());
+        assertEquals(1, dao.loadAll(Launch.class).size());
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+        assertSame(rocket, dao.load(Rocket.class, rocket.getId()));
+    }
+
+    @Test
+    public void shouldUpdateEntityWithSameId() {
+        dao.createOrUpdate(rocket);
+        rocket.setWikilink("https://en.wikipedia.org/wiki/Falcon_9");
+        dao.createOrUpdate(rocket);
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+        assertEquals(rocket.getWikilink(), dao.load(Rocket.class, rocket.getId()).getWikilink());
+    }
+
+    @Test
+    public void shouldDeleteRocketWithoutDeleteLSP() {
+        dao.createOrUpdate(rocket);
+        dao.delete(rocket);
+        assertTrue(dao.loadAll(Rocket.class).isEmpty());
+        assertFalse(dao.loadAll(LaunchServiceProvider.class).isEmpty());
+    }
+
+    @Test
+    public void shouldThrowExceptionIfDeleteInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> dao.delete(rocket));
+    }
+}
@@ -1,6 +1,7 @@
 package rockets.dataaccess.neo4j;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Striped;
 import org.junit.jupiter.api.*;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.harness.ServerControls;
@@ -9,17 +10,39 @@ import org.neo4j.ogm.drivers.embedded.driver.EmbeddedDriver;
 import org.neo4j.ogm.session.Session;
 import org.neo4j.ogm.session.SessionFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.EntityView;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.Projection;
+import rockets.metrics.OperationMetrics;
+import rockets.model.Dictionaries;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
 import rockets.model.Rocket;
 import rockets.model.User;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class Neo4jDAOUnitTest {
     private DAO dao;
@@ -178,6 +201,586 @@ public class Neo4jDAOUnitTest {
         assertFalse(dao.loadAll(LaunchServiceProvider.class).isEmpty());
     }
 
+    @Test
+    public void shouldFindUpdateAndDeleteLaunchByNaturalKey() {
+        Launch saved = launch(LocalDate.of(2017, 1, 1), rocket, "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL);
+        Launch copy = new Launch();
+        copy.setLaunchDate(LocalDate.of(2017, 1, 1));
+        copy.setLaunchVehicle(new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA")));
+        copy.setLaunchServiceProvider(copy.getLaunchVehicle().getManufacturer());
+        copy.setLaunchSite("VAFB");
+        copy.setOrbit("GTO");
+        copy.setLaunchOutcome(Launch.LaunchOutcome.SUCCESSFUL);
+
+        assertEquals(saved.getId(), dao.findExisting(copy).get().getId());
+        dao.createOrUpdate(copy);
+        assertEquals(saved.getId(), copy.getId());
+        assertEquals(1, dao.loadAll(Launch.class).size());
+        assertEquals("GTO", dao.loadAll(Launch.class).iterator().next().getOrbit());
+        dao.delete(copy);
+        assertTrue(dao.loadAll(Launch.class).isEmpty());
+        assertFalse(dao.findExisting(copy).isPresent());
+    }
+
+    private Launch launch(LocalDate date, Rocket vehicle, String orbit, long price, Launch.LaunchOutcome outcome) {
+        Launch launch = new Launch();
+        launch.setLaunchDate(date);
+        launch.setLaunchVehicle(vehicle);
+        launch.setLaunchServiceProvider(vehicle.getManufacturer());
+        launch.setLaunchSite("VAFB");
+        launch.setOrbit(orbit);
+        launch.setPrice(BigDecimal.valueOf(price));
+        launch.setLaunchOutcome(outcome);
+        return dao.createOrUpdate(launch);
+    }
+
+    @Test
+    public void shouldRunLaunchQueriesInsideNeo4j() {
+        Rocket ariane = new Rocket("Ariane4", "France", esa);
+        Launch first = launch(LocalDate.of(2017, 1, 1), rocket, "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL);
+        Launch second = launch(LocalDate.of(2017, 2, 1), rocket, "LEO", 900, Launch.LaunchOutcome.SUCCESSFUL);
+        Launch third = launch(LocalDate.of(2018, 3, 1), ariane, "GTO", 1000, Launch.LaunchOutcome.FAILED);
+        Launch fourth = launch(LocalDate.of(2018, 4, 1), rocket, "LEO", 50, Launch.LaunchOutcome.FAILED);
+
+        LaunchQueries queries = dao.launchQueries().get();
+        assertEquals(Arrays.asList(fourth, third), queries.mostRecentLaunches(2));
+        assertEquals(Arrays.asList(third, second, first), queries.mostExpensiveLaunches(3));
+        assertEquals(Arrays.asList(rocket, ariane), queries.mostLaunchedRockets(5));
+        assertEquals(Arrays.asList(spacex), queries.mostReliableLaunchServiceProviders(5));
+        assertEquals(Arrays.asList(esa, spacex), queries.mostUnreliableLaunchServiceProviders(5));
+        assertEquals(Arrays.asList(spacex), queries.highestRevenueLaunchServiceProviders(5, 2017));
+        assertEquals(Arrays.asList(esa, spacex), queries.highestRevenueLaunchServiceProviders(2, 2018));
+        assertEquals("USA", queries.dominantCountry("LEO"));
+        assertEquals("Europe", queries.dominantCountry("GTO"));
+        assertEquals("", queries.dominantCountry("SSO"));
+    }
+
+    @Test
+    public void shouldNotDropEqualLaunchesFromLaunchQueryResults() {
+        Launch first = launch(LocalDate.of(2017, 1, 1), rocket, "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL);
+        Launch second = launch(LocalDate.of(2017, 1, 1), rocket, "LEO", 200, Launch.LaunchOutcome.FAILED);
+        assertEquals(first, second);
+        assertNotEquals(first.getId(), second.getId());
+        List<Launch> launches = dao.launchQueries().get().mostExpensiveLaunches(2);
+        assertEquals(2, launches.size());
+        assertEquals(second.getId(), launches.get(0).getId());
+        assertEquals(first.getId(), launches.get(1).getId());
+        assertEquals(rocket, launches.get(0).getLaunchVehicle());
+    }
+
+    @Test
+    public void shouldStreamAllEntitiesInPages() {
+        Neo4jDAO pagedDao = new Neo4jDAO(session);
+        pagedDao.setPageSize(2);
+        Set<Rocket> rockets = Sets.newHashSet(
+                new Rocket("Ariane4", "France", esa),
+                new Rocket("Ariane5", "France", esa),
+                new Rocket("F5", "USA", spacex),
+                new Rocket("F9", "USA", spacex),
+                new Rocket("BFR", "USA", spacex)
+        );
+        for (Rocket r : rockets) {
+            pagedDao.createOrUpdate(r);
+        }
+        List<Rocket> streamed = pagedDao.stream(Rocket.class).collect(Collectors.toList());
+        assertEquals(rockets.size(), streamed.size());
+        assertEquals(rockets, Sets.newHashSet(streamed));
+        assertTrue(pagedDao.stream(Launch.class).count() == 0);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenPageSizeIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new Neo4jDAO(session).setPageSize(0));
+    }
+
+    private Launch newLaunch(LocalDate date, Rocket vehicle, Launch.LaunchOutcome outcome) {
+        Launch launch = new Launch();
+        launch.setLaunchDate(date);
+        launch.setLaunchVehicle(vehicle);
+        launch.setLaunchServiceProvider(vehicle.getManufacturer());
+        launch.setLaunchSite("VAFB");
+        launch.setOrbit("LEO");
+        launch.setLaunchOutcome(outcome);
+        return launch;
+    }
+
+    @Test
+    public void shouldCreateAllEntitiesOfABatch() {
+        Neo4jDAO batchDao = new Neo4jDAO(session);
+        batchDao.setBatchSize(2);
+        Rocket ariane = new Rocket("Ariane4", "France", esa);
+        List<Launch> launches = Arrays.asList(
+                newLaunch(LocalDate.of(2017, 1, 1), rocket, Launch.LaunchOutcome.SUCCESSFUL),
+                newLaunch(LocalDate.of(2017, 2, 1), ariane, Launch.LaunchOutcome.FAILED),
+                newLaunch(LocalDate.of(2017, 3, 1), rocket, Launch.LaunchOutcome.SUCCESSFUL));
+
+        List<Launch> saved = batchDao.createOrUpdateAll(launches);
+        assertEquals(launches, saved);
+        saved.forEach(launch -> assertNotNull(launch.getId()));
+        assertNotNull(rocket.getId());
+        assertNotNull(esa.getId());
+        assertEquals(3, dao.loadAll(Launch.class).size());
+        assertEquals(2, dao.loadAll(Rocket.class).size());
+        assertEquals(2, dao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldResolveExistingEntitiesByNaturalKeyInABatch() {
+        dao.createOrUpdate(rocket);
+        Long rocketId = rocket.getId();
+        Long spacexId = spacex.getId();
+
+        LaunchServiceProvider sameSpacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        Rocket sameRocket = new Rocket("F9", "USA", sameSpacex);
+        sameRocket.setWikilink("https://en.wikipedia.org/wiki/Falcon_9");
+        dao.createOrUpdateAll(Arrays.asList(sameRocket, new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"))));
+
+        assertEquals(rocketId, sameRocket.getId());
+        assertEquals(spacexId, sameSpacex.getId());
+        assertEquals(1, dao.loadAll(Rocket.class).size());
+        assertEquals(1, dao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldUpdateExistingLaunchesInABatch() {
+        Launch launch = newLaunch(LocalDate.of(2017, 1, 1), rocket, Launch.LaunchOutcome.SUCCESSFUL);
+        dao.createOrUpdateAll(Arrays.asList(launch));
+
+        Rocket sameRocket = new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"));
+        Launch sameLaunch = newLaunch(LocalDate.of(2017, 1, 1), sameRocket, Launch.LaunchOutcome.SUCCESSFUL);
+        sameLaunch.setPrice(BigDecimal.valueOf(100));
+        dao.createOrUpdateAll(Arrays.asList(sameLaunch));
+
+        assertEquals(launch.getId(), sameLaunch.getId());
+        Collection<Launch> launches = dao.loadAll(Launch.class);
+        assertEquals(1, launches.size());
+        assertEquals(BigDecimal.valueOf(100), launches.iterator().next().getPrice());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenBatchSizeIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new Neo4jDAO(session).setBatchSize(0));
+    }
+
+    @Test
+    public void shouldCreateNaturalKeyIndexesOnInitialization() {
+        List<String> report = new Neo4jSchema(session).report();
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("INDEX ON :User(email) node_unique_property")));
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("INDEX ON :Rocket(name, country)")));
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("INDEX ON :LaunchServiceProvider(name, yearFounded, country)")));
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("INDEX ON :Launch(launchDate, launchSite, launchOutcome)")));
+        assertTrue(report.stream().anyMatch(line -> line.startsWith("INDEX ON :Launch(launchDate)")));
+        assertFalse(report.stream().anyMatch(line -> line.startsWith("INDEX ON :Launch(price)")));
+    }
+
+    @Test
+    public void shouldDropLaunchPriceIndexOnBootstrap() {
+        session.query("CREATE INDEX ON :Launch(price)", Collections.emptyMap());
+        assertTrue(new Neo4jSchema(session).report().stream().anyMatch(line -> line.startsWith("INDEX ON :Launch(price)")));
+        assertFalse(new Neo4jSchema(session).bootstrap().stream().anyMatch(line -> line.startsWith("INDEX ON :Launch(price)")));
+    }
+
+    @Test
+    public void shouldBootstrapSchemaIdempotently() {
+        List<String> report = new Neo4jSchema(session).report();
+        assertEquals(report.size(), new Neo4jSchema(session).bootstrap().size());
+        new Neo4jDAO(session);
+        assertEquals(report.size(), new Neo4jSchema(session).report().size());
+    }
+
+    @Test
+    public void shouldInternStringsOfLoadedEntities() {
+        Launch launch = launch(LocalDate.of(2017, 1, 1), rocket, "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL);
+        session.clear();
+        Launch loaded = dao.load(Launch.class, launch.getId());
+        assertNotSame(launch, loaded);
+        assertSame(Dictionaries.ORBITS.intern("LEO"), loaded.getOrbit());
+        assertSame(Dictionaries.LAUNCH_SITES.intern("VAFB"), loaded.getLaunchSite());
+        assertSame(Dictionaries.COUNTRIES.intern("USA"), loaded.getLaunchVehicle().getCountry());
+        assertSame(loaded.getLaunchVehicle().getCountry(), loaded.getLaunchServiceProvider().getCountry());
+    }
+
+    @Test
+    public void shouldCountRoundTripsPerDAOCall() {
+        try (RoundTripTrace trace = RoundTripTrace.start()) {
+            dao.createOrUpdate(rocket);
+            dao.load(Rocket.class, rocket.getId());
+
+            List<RoundTripTrace.Call> calls = trace.getCalls();
+            assertEquals(2, calls.size());
+            assertEquals("createOrUpdate[Rocket]", calls.get(0).getOperation());
+            assertEquals(2, calls.get(0).getStatements());
+            assertEquals("load[Rocket]", calls.get(1).getOperation());
+            assertEquals(1, calls.get(1).getStatements());
+            assertEquals(1, calls.get(1).getRows());
+            assertEquals(3, trace.getStatements());
+            assertTrue(trace.getRepeatedLookups().isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldFlagLookupsRepeatedInALoop() {
+        List<Launch> launches = Arrays.asList(
+                newLaunch(LocalDate.of(2017, 1, 1), rocket, Launch.LaunchOutcome.SUCCESSFUL),
+                newLaunch(LocalDate.of(2017, 2, 1), rocket, Launch.LaunchOutcome.SUCCESSFUL),
+                newLaunch(LocalDate.of(2017, 3, 1), rocket, Launch.LaunchOutcome.FAILED));
+        try (RoundTripTrace trace = RoundTripTrace.start(3)) {
+            launches.forEach(dao::createOrUpdate);
+            assertEquals(1, trace.getRepeatedLookups().size());
+            assertEquals(Integer.valueOf(3), trace.getRepeatedLookups().values().iterator().next());
+            assertTrue(trace.getRepeatedLookups().keySet().iterator().next().startsWith("query(UNWIND $keys AS key MATCH (n:Launch)"));
+        }
+        try (RoundTripTrace trace = RoundTripTrace.start(3)) {
+            dao.createOrUpdateAll(launches);
+            assertTrue(trace.getRepeatedLookups().isEmpty());
+            assertEquals(1, trace.getCalls().size());
+        }
+    }
+
+    @Test
+    public void shouldNotTraceOutsideTraceOrAfterClose() {
+        RoundTripTrace outer = RoundTripTrace.start();
+        RoundTripTrace inner = RoundTripTrace.start();
+        dao.createOrUpdate(rocket);
+        inner.close();
+        dao.loadAll(Rocket.class);
+        outer.close();
+        dao.loadAll(Rocket.class);
+        assertEquals(1, inner.getCalls().size());
+        assertEquals(1, outer.getCalls().size());
+        assertEquals("loadAll[Rocket]", outer.getCalls().get(0).getOperation());
+        assertThrows(IllegalArgumentException.class, () -> RoundTripTrace.start(1));
+    }
+
+    @Test
+    public void shouldProjectOnlyRequestedFieldsInPages() {
+        Neo4jDAO pagedDao = new Neo4jDAO(session);
+        pagedDao.setPageSize(2);
+        Rocket ariane = new Rocket("Ariane4", "France", esa);
+        Launch first = launch(LocalDate.of(2017, 1, 1), rocket, "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL);
+        Launch second = launch(LocalDate.of(2017, 2, 1), rocket, "LEO", 900, Launch.LaunchOutcome.FAILED);
+        Launch third = launch(LocalDate.of(2018, 3, 1), ariane, "GTO", 1000, Launch.LaunchOutcome.FAILED);
+        session.clear();
+
+        Projection projection = Projection.of(Launch.class,
+                "launchDate", "price", "launchOutcome", "launchServiceProvider", "launchVehicle.manufacturer.country");
+        List<EntityView> views = pagedDao.project(projection).collect(Collectors.toList());
+
+        List<Long> ids = views.stream().map(EntityView::getId).collect(Collectors.toList());
+        assertEquals(Sets.newHashSet(first.getId(), second.getId(), third.getId()), Sets.newHashSet(ids));
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+        Map<Long, EntityView> byId = views.stream().collect(Collectors.toMap(EntityView::getId, v -> v));
+        EntityView view = byId.get(third.getId());
+        assertEquals(LocalDate.of(2018, 3, 1), view.get("launchDate", LocalDate.class));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(view.get("price", BigDecimal.class)));
+        assertEquals(Launch.LaunchOutcome.FAILED, view.get("launchOutcome"));
+        assertEquals(esa.getId(), view.get("launchServiceProvider"));
+        assertEquals("Europe", view.get("launchVehicle.manufacturer.country"));
+        assertEquals("USA", byId.get(first.getId()).get("launchVehicle.manufacturer.country"));
+        assertThrows(IllegalArgumentException.class, () -> view.get("orbit"));
+    }
+
+    @Test
+    public void shouldProjectMissingRelationshipsAsNull() {
+        Launch launch = new Launch();
+        launch.setLaunchDate(LocalDate.of(2017, 1, 1));
+        launch.setLaunchSite("VAFB");
+        dao.createOrUpdate(launch);
+
+        EntityView view = dao.project(Projection.of(Launch.class, "launchVehicle", "launchVehicle.name"))
+                .findFirst().get();
+        assertNull(view.get("launchVehicle"));
+        assertNull(view.get("launchVehicle.name"));
+    }
+
+    @Test
+    public void shouldLoadEntitiesAtRequestedDepth() {
+        Rocket saved = dao.createOrUpdate(rocket);
+        session.clear();
+        assertNull(dao.load(Rocket.class, saved.getId(), 0).getManufacturer());
+        session.clear();
+        assertEquals(spacex, dao.load(Rocket.class, saved.getId(), 1).getManufacturer());
+        session.clear();
+        assertNull(dao.loadAll(Rocket.class, 0).iterator().next().getManufacturer());
+
+        Neo4jDAO shallowDao = new Neo4jDAO(session);
+        shallowDao.setDepth(0);
+        session.clear();
+        assertNull(shallowDao.load(Rocket.class, saved.getId()).getManufacturer());
+        assertThrows(IllegalArgumentException.class, () -> shallowDao.setDepth(-1));
+        assertThrows(IllegalArgumentException.class, () -> dao.load(Rocket.class, saved.getId(), -1));
+    }
+
+    @Test
+    public void shouldServeConcurrentCallsWithSessionsFromFactory() throws Exception {
+        Neo4jDAO factoryDao = new Neo4jDAO(sessionFactory);
+        factoryDao.setPageSize(2);
+        Rocket ariane = factoryDao.createOrUpdate(new Rocket("Ariane4", "France", esa));
+        Rocket f9 = factoryDao.createOrUpdate(rocket);
+        launch(LocalDate.of(2017, 1, 1), f9, "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() ->
+                        ariane.equals(factoryDao.load(Rocket.class, ariane.getId()))
+                                && factoryDao.stream(Rocket.class).count() == 2
+                                && factoryDao.loadAll(LaunchServiceProvider.class).size() == 2
+                                && Arrays.asList(spacex).equals(factoryDao.launchQueries().get().mostLaunchedRockets(1)
+                                        .stream().map(Rocket::getManufacturer).collect(Collectors.toList()))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldCommitOrRollBackUnitsOfWork() {
+        Neo4jDAO factoryDao = new Neo4jDAO(sessionFactory);
+        Launch saved = factoryDao.inUnitOfWork(() -> {
+            factoryDao.createOrUpdate(rocket);
+            return factoryDao.createOrUpdate(newLaunch(LocalDate.of(2017, 1, 1), rocket, Launch.LaunchOutcome.SUCCESSFUL));
+        });
+        assertEquals(rocket, dao.load(Launch.class, saved.getId(), 2).getLaunchVehicle());
+
+        try (UnitOfWork unit = factoryDao.openUnitOfWork()) {
+            factoryDao.createOrUpdate(new Rocket("Ariane4", "France", esa));
+            assertEquals(2, factoryDao.loadAll(Rocket.class).size());
+            assertThrows(IllegalStateException.class, factoryDao::openUnitOfWork);
+        }
+        assertEquals(1, factoryDao.loadAll(Rocket.class).size());
+        assertThrows(IllegalStateException.class, () -> factoryDao.inUnitOfWork(() -> {
+            factoryDao.createOrUpdate(new Rocket("Ariane5", "France", esa));
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals(1, factoryDao.loadAll(Rocket.class).size());
+        assertEquals(1, factoryDao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldTakeBackIdsOfRolledBackWrites() {
+        Neo4jDAO factoryDao = new Neo4jDAO(sessionFactory);
+        Rocket ariane = new Rocket("Ariane4", "France", esa);
+        try (UnitOfWork unit = factoryDao.openUnitOfWork()) {
+            factoryDao.createOrUpdate(ariane);
+            assertNotNull(ariane.getId());
+            assertNotNull(esa.getId());
+        }
+        assertNull(ariane.getId());
+        assertNull(esa.getId());
+        factoryDao.createOrUpdate(ariane);
+        assertEquals(ariane, factoryDao.load(Rocket.class, ariane.getId()));
+
+        Session failing = spy(session);
+        doThrow(new IllegalStateException("database is down")).when(failing).save(any(List.class));
+        Neo4jDAO failingDao = new Neo4jDAO(failing);
+        Launch launch = newLaunch(LocalDate.of(2017, 1, 1), new Rocket("F9", "USA", spacex), Launch.LaunchOutcome.SUCCESSFUL);
+        Rocket ariane5 = new Rocket("Ariane5", "France", ariane.getManufacturer());
+        assertThrows(IllegalStateException.class, () -> failingDao.createOrUpdateAll(Arrays.asList(launch, ariane5)));
+        assertNull(launch.getId());
+        assertNull(launch.getLaunchVehicle().getId());
+        assertNull(ariane5.getId());
+        assertNotNull(ariane5.getManufacturer().getId());
+    }
+
+    @Test
+    public void shouldNotDuplicateNaturalKeysUpsertedConcurrently() throws Exception {
+        Neo4jDAO factoryDao = new Neo4jDAO(sessionFactory);
+        int threads = 8;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean batched = t % 2 == 0;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 5; i++) {
+                        User user = new User();
+                        user.setEmail("ada" + i + "@example.com");
+                        Rocket rocket = new Rocket("F" + i, "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"));
+                        if (batched) {
+                            factoryDao.createOrUpdateAll(Arrays.asList(user, rocket));
+                        } else {
+                            factoryDao.createOrUpdate(user);
+                            factoryDao.createOrUpdate(rocket);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(5, dao.loadAll(User.class).size());
+        assertEquals(5, dao.loadAll(Rocket.class).size());
+    }
+
+    @Test
+    public void shouldHoldKeyLocksUntilUnitOfWorkCloses() throws Exception {
+        Neo4jDAO factoryDao = new Neo4jDAO(sessionFactory);
+        factoryDao.setLockStripes(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (UnitOfWork unit = factoryDao.openUnitOfWork()) {
+            factoryDao.createOrUpdate(rocket);
+            factoryDao.createOrUpdate(new Rocket("F5", "USA", spacex));
+            Future<Rocket> concurrent = executor.submit(() -> factoryDao.createOrUpdate(new Rocket("F9", "USA", spacex)));
+            assertThrows(TimeoutException.class, () -> concurrent.get(200, TimeUnit.MILLISECONDS));
+            unit.commit();
+            unit.close();
+            assertEquals(rocket.getId(), concurrent.get(30, TimeUnit.SECONDS).getId());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThrows(IllegalArgumentException.class, () -> factoryDao.setLockStripes(0));
+    }
+
+    @Test
+    public void shouldFailInsteadOfDeadlockingUnitsLockingStripesInOppositeOrder() throws Exception {
+        Neo4jDAO factoryDao = new Neo4jDAO(sessionFactory);
+        factoryDao.setLockStripes(2);
+        factoryDao.setLockTimeout(200, TimeUnit.MILLISECONDS);
+        Striped<Lock> stripes = Striped.lock(2);
+        String first = "ada@example.com";
+        String second = null;
+        for (int i = 0; null == second; i++) {
+            String candidate = "user" + i + "@example.com";
+            if (stripes.get(Neo4jDAO.lockKeyOf(User.class, Arrays.asList(first)))
+                    != stripes.get(Neo4jDAO.lockKeyOf(User.class, Arrays.asList(candidate)))) {
+                second = candidate;
+            }
+        }
+
+        CyclicBarrier firstWritten = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> units = new ArrayList<>();
+            for (List<String> emails : Arrays.asList(Arrays.asList(first, second), Arrays.asList(second, first))) {
+                // the second unit asks for its second lock later, so the first times out first
+                long stagger = units.size() * 100L;
+                units.add(executor.submit(() -> {
+                    try (UnitOfWork unit = factoryDao.openUnitOfWork()) {
+                        for (String email : emails) {
+                            User user = new User();
+                            user.setEmail(email);
+                            factoryDao.createOrUpdate(user);
+                            if (email.equals(emails.get(0))) {
+                                firstWritten.await(30, TimeUnit.SECONDS);
+                                Thread.sleep(stagger);
+                            }
+                        }
+                        unit.commit();
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+            int committed = 0;
+            for (Future<Boolean> unit : units) {
+                committed += unit.get(30, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(1, committed);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, dao.loadAll(User.class).size());
+        assertThrows(IllegalArgumentException.class, () -> factoryDao.setLockTimeout(-1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldClearSessionAfterConfiguredOperationsOrEntities() {
+        Neo4jDAO sessionDao = new Neo4jDAO(session);
+        sessionDao.createOrUpdate(rocket);
+        sessionDao.createOrUpdate(new Rocket("Ariane4", "France", esa));
+        sessionDao.clearSession();
+        assertEquals(0, sessionDao.getMappedEntities());
+        OperationMetrics clears = sessionDao.getMetrics().operation("neo4j.clearSession");
+        long clearsBefore = clears.getCalls();
+        long rowsBefore = clears.getRows();
+
+        sessionDao.setClearEvery(2);
+        sessionDao.loadAll(Rocket.class);
+        assertEquals(4, sessionDao.getMappedEntities());
+        sessionDao.load(Rocket.class, rocket.getId());
+        assertEquals(4, sessionDao.getMappedEntities());
+        sessionDao.load(Rocket.class, rocket.getId());
+        assertEquals(2, sessionDao.getMappedEntities());
+
+        sessionDao.setClearEvery(0);
+        sessionDao.setMaxMappedEntities(3);
+        sessionDao.loadAll(Rocket.class);
+        assertEquals(4, sessionDao.getMappedEntities());
+        sessionDao.load(LaunchServiceProvider.class, spacex.getId(), 0);
+        assertEquals(1, sessionDao.getMappedEntities());
+
+        assertEquals(2, clears.getCalls() - clearsBefore);
+        assertEquals(8, clears.getRows() - rowsBefore);
+        assertThrows(IllegalArgumentException.class, () -> sessionDao.setClearEvery(-1));
+        assertThrows(IllegalArgumentException.class, () -> sessionDao.setMaxMappedEntities(-1));
+    }
+
+    @Test
+    public void shouldClearSessionAfterScans() {
+        Neo4jDAO sessionDao = new Neo4jDAO(session);
+        sessionDao.setClearAfterScans(true);
+        sessionDao.createOrUpdate(rocket);
+        session.clear();
+        try (Stream<Rocket> rockets = sessionDao.stream(Rocket.class)) {
+            assertEquals(rocket, rockets.findFirst().get());
+            assertEquals(2, sessionDao.getMappedEntities());
+            assertEquals("neo4j.mappedEntities=2", sessionDao.getMetrics().getGauges().get(0).toString());
+        }
+        assertEquals(0, sessionDao.getMappedEntities());
+        assertEquals(-1, new Neo4jDAO(sessionFactory).getMappedEntities());
+    }
+
+    @Test
+    public void shouldDetachEveryPageOfAScan() {
+        Neo4jDAO pagedDao = new Neo4jDAO(session);
+        pagedDao.setPageSize(2);
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            user.setPassword("Passw0rd!");
+            pagedDao.createOrUpdate(user);
+        }
+        session.clear();
+        try (Stream<User> users = pagedDao.stream(User.class)) {
+            assertEquals(5, users.count());
+            assertEquals(0, pagedDao.getMappedEntities());
+        }
+        try (Stream<User> users = pagedDao.stream(User.class)) {
+            assertTrue(users.findFirst().isPresent());
+            assertEquals(2, pagedDao.getMappedEntities());
+        }
+        assertEquals(0, pagedDao.getMappedEntities());
+    }
+
+    @Test
+    public void shouldDetachNeighboursButNotEntitiesMappedBeforeAScan() {
+        Neo4jDAO pagedDao = new Neo4jDAO(session);
+        pagedDao.setPageSize(2);
+        pagedDao.createOrUpdate(rocket);
+        Rocket ariane = pagedDao.createOrUpdate(new Rocket("Ariane4", "France", esa));
+        pagedDao.createOrUpdate(new Rocket("Ariane5", "France", esa));
+        pagedDao.createOrUpdate(new Rocket("Vega", "Italy", esa));
+        session.clear();
+        Rocket mapped = pagedDao.load(Rocket.class, ariane.getId(), 0);
+        try (Stream<Rocket> rockets = pagedDao.stream(Rocket.class)) {
+            assertEquals(4, rockets.count());
+        }
+        assertEquals(1, pagedDao.getMappedEntities());
+        assertSame(mapped, pagedDao.load(Rocket.class, ariane.getId(), 0));
+    }
+
     @AfterEach
     public void tearDown() {
         session.purgeDatabase();
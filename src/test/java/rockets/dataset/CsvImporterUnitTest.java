@@ -0,0 +1,161 @@
+package rockets.dataset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CsvImporterUnitTest {
+    private static final String PROVIDERS = "name,yearFounded,country,headquarters\n";
+    private static final String ROCKETS = "name,country,manufacturer,manufacturerYearFounded,manufacturerCountry\n";
+    private static final String LAUNCHES = "launchDate,rocket,rocketCountry,provider,providerYearFounded,providerCountry," +
+            "launchSite,orbit,function,price,launchOutcome\n";
+
+    private DAO dao;
+    private CsvImporter importer;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new InMemoryDAO();
+        importer = new CsvImporter(dao);
+    }
+
+    @Test
+    public void shouldImportGeneratedDataset() throws IOException {
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 20000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+        StringBuilder providers = new StringBuilder();
+        StringBuilder rockets = new StringBuilder();
+        StringBuilder launches = new StringBuilder();
+        generator.writeCsv(providers, rockets, launches);
+
+        importer.setBatchSize(7);
+        importer.setQueueCapacity(3);
+        List<ImportProgress> reported = new ArrayList<>();
+        importer.setProgressInterval(5000);
+        importer.setProgressListener(reported::add);
+        List<ImportProgress> progress = importer.importAll(new StringReader(providers.toString()),
+                new StringReader(rockets.toString()), new StringReader(launches.toString()));
+
+        assertEquals(10, dao.loadAll(LaunchServiceProvider.class).size());
+        assertEquals(40, dao.loadAll(Rocket.class).size());
+        ImportProgress launchProgress = progress.get(2);
+        assertEquals(20000, launchProgress.getRead());
+        assertEquals(0, launchProgress.getRejected());
+        assertEquals(20000, launchProgress.getWritten() + launchProgress.getDuplicates());
+        assertEquals(launchProgress.getWritten(), dao.loadAll(Launch.class).size());
+        assertTrue(reported.size() > 3);
+        assertTrue(reported.contains(launchProgress));
+
+        Launch launch = dao.loadAll(Launch.class).iterator().next();
+        assertSame(dao.load(Rocket.class, launch.getLaunchVehicle().getId()), launch.getLaunchVehicle());
+        assertNotNull(launch.getPrice());
+    }
+
+    @Test
+    public void shouldRejectInvalidRecordsAndDropDuplicates() throws IOException {
+        ImportProgress providers = importer.importProviders(new StringReader(PROVIDERS +
+                "SpaceX,2002,USA,Hawthorne\n" +
+                "SpaceX,2002,USA,Hawthorne\n" +
+                "Future,3000,USA,\n" +
+                "Nameless,,USA,\n" +
+                "ESA,1975,Europe,\n"));
+        assertEquals(5, providers.getRead());
+        assertEquals(2, providers.getRejected());
+        assertEquals(1, providers.getDuplicates());
+        assertEquals(2, providers.getWritten());
+
+        ImportProgress rockets = importer.importRockets(new StringReader(ROCKETS +
+                "Falcon 9,USA,SpaceX,2002,USA\n" +
+                "Ariane 5,Europe,Arianespace,1980,France\n"));
+        assertEquals(1, rockets.getWritten());
+        assertEquals(1, rockets.getRejected());
+
+        ImportProgress launches = importer.importLaunches(new StringReader(LAUNCHES +
+                "2017-01-14,Falcon 9,USA,SpaceX,2002,USA,Vandenberg,LEO,Commercial,62000000,SUCCESSFUL\n" +
+                "2017-01-14,Falcon 9,USA,SpaceX,2002,USA,Vandenberg,LEO,Commercial,62000000,SUCCESSFUL\n" +
+                "2017-01-15,Falcon 9,USA,SpaceX,2002,USA,Vandenberg,LEO,Commercial,62000000,SUCCESSFUL\n" +
+                "2017-13-01,Falcon 9,USA,SpaceX,2002,USA,Vandenberg,LEO,Commercial,62000000,SUCCESSFUL\n" +
+                "2017-02-01,Falcon 9,USA,SpaceX,2002,USA,Vandenberg,LEO,Commercial,lots,SUCCESSFUL\n" +
+                "2017-02-02,Falcon 9,USA,SpaceX,2002,USA,,,,,\n"));
+        assertEquals(6, launches.getRead());
+        assertEquals(2, launches.getRejected());
+        assertEquals(1, launches.getDuplicates());
+        assertEquals(3, launches.getWritten());
+
+        Launch undescribed = dao.loadAll(Launch.class).stream()
+                .filter(l -> l.getLaunchDate().equals(LocalDate.of(2017, 2, 2))).findFirst().get();
+        assertNull(undescribed.getPrice());
+        assertNull(undescribed.getLaunchOutcome());
+        assertEquals(BigDecimal.valueOf(62000000), dao.loadAll(Launch.class).iterator().next().getPrice());
+    }
+
+    @Test
+    public void shouldDropOnlyDuplicatesWithinDedupeWindow() throws IOException {
+        importer.importProviders(new StringReader(PROVIDERS + "SpaceX,2002,USA,\n"));
+        importer.importRockets(new StringReader(ROCKETS + "Falcon 9,USA,SpaceX,2002,USA\n"));
+        importer.setDedupeWindow(1);
+        String first = "2017-01-14,Falcon 9,USA,SpaceX,2002,USA,Vandenberg,LEO,,,SUCCESSFUL\n";
+        String second = "2017-01-15,Falcon 9,USA,SpaceX,2002,USA,Vandenberg,LEO,,,SUCCESSFUL\n";
+        ImportProgress launches = importer.importLaunches(new StringReader(LAUNCHES + first + first + second + first));
+        assertEquals(1, launches.getDuplicates());
+        assertEquals(3, launches.getWritten());
+    }
+
+    @Test
+    public void shouldPropagateWriteFailure() {
+        DAO failing = mock(DAO.class);
+        when(failing.createOrUpdateAll(any())).thenThrow(new IllegalStateException("database is down"));
+        CsvImporter importer = new CsvImporter(failing);
+        importer.setBatchSize(1);
+        importer.setQueueCapacity(1);
+        StringBuilder providers = new StringBuilder(PROVIDERS);
+        for (int i = 0; i < 1000; i++) {
+            providers.append("provider_").append(i).append(",2000,USA,\n");
+        }
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> importer.importProviders(new StringReader(providers.toString())));
+        assertEquals("database is down", exception.getMessage());
+    }
+
+    @Test
+    public void shouldOnlyRememberWrittenProviders() throws IOException {
+        DAO flaky = spy(dao);
+        doThrow(new IllegalStateException("database is down")).doCallRealMethod()
+                .when(flaky).createOrUpdateAll(any());
+        CsvImporter importer = new CsvImporter(flaky);
+        String providers = PROVIDERS + "SpaceX,2002,USA,\nESA,1975,Europe,\n";
+        assertThrows(IllegalStateException.class, () -> importer.importProviders(new StringReader(providers)));
+        assertEquals(0, importer.importRockets(new StringReader(ROCKETS + "F9,USA,SpaceX,2002,USA\n")).getWritten());
+
+        ImportProgress retried = importer.importProviders(new StringReader(providers));
+        assertEquals(2, retried.getWritten());
+        assertEquals(0, retried.getDuplicates());
+        assertEquals(1, importer.importRockets(new StringReader(ROCKETS + "F9,USA,SpaceX,2002,USA\n")).getWritten());
+        assertEquals(2, dao.loadAll(LaunchServiceProvider.class).size());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenSettingsAreInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> importer.setBatchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> importer.setQueueCapacity(0));
+        assertThrows(IllegalArgumentException.class, () -> importer.setDedupeWindow(0));
+        assertThrows(NullPointerException.class, () -> importer.setProgressListener(null));
+        assertThrows(NullPointerException.class, () -> new CsvImporter(null));
+    }
+}
@@ -0,0 +1,103 @@
+package rockets.dataset;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.mining.RocketMiner;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LaunchDatasetGeneratorUnitTest {
+    private LaunchDatasetGenerator generator;
+
+    @BeforeEach
+    public void setUp() {
+        generator = new LaunchDatasetGenerator(5171, 20000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+    }
+
+    private String[] csv(LaunchDatasetGenerator generator) throws IOException {
+        StringBuilder providers = new StringBuilder();
+        StringBuilder rockets = new StringBuilder();
+        StringBuilder launches = new StringBuilder();
+        generator.writeCsv(providers, rockets, launches);
+        return new String[]{providers.toString(), rockets.toString(), launches.toString()};
+    }
+
+    @Test
+    public void shouldGenerateSameDatasetForSameSeed() throws IOException {
+        LaunchDatasetGenerator another = new LaunchDatasetGenerator(5171, 20000);
+        another.setProviders(10);
+        another.setRockets(40);
+        assertArrayEquals(csv(generator), csv(another));
+    }
+
+    @Test
+    public void shouldGenerateDifferentDatasetForDifferentSeed() throws IOException {
+        LaunchDatasetGenerator another = new LaunchDatasetGenerator(5172, 20000);
+        another.setProviders(10);
+        another.setRockets(40);
+        assertNotEquals(csv(generator)[2], csv(another)[2]);
+    }
+
+    @Test
+    public void shouldWriteCsvWithHeaderAndOneRecordPerEntity() throws IOException {
+        String[] files = csv(generator);
+        assertEquals(10, CSVParser.parse(files[0], CsvSchema.PROVIDERS.withSkipHeaderRecord()).getRecords().size());
+        assertEquals(40, CSVParser.parse(files[1], CsvSchema.ROCKETS.withSkipHeaderRecord()).getRecords().size());
+        List<CSVRecord> launches = CSVParser.parse(new StringReader(files[2]), CsvSchema.LAUNCHES.withSkipHeaderRecord()).getRecords();
+        assertEquals(20000, launches.size());
+        assertTrue(launches.get(0).get(CsvSchema.LaunchColumn.rocket).startsWith("rocket_"));
+    }
+
+    @Test
+    public void shouldStreamDatasetIntoDAO() {
+        DAO dao = new InMemoryDAO();
+        generator.writeTo(dao);
+        assertEquals(10, dao.loadAll(LaunchServiceProvider.class).size());
+        assertEquals(40, dao.loadAll(Rocket.class).size());
+        assertEquals(20000, dao.loadAll(Launch.class).size());
+    }
+
+    @Test
+    public void shouldSkewLaunchesTowardsFirstRockets() {
+        DAO dao = new InMemoryDAO();
+        generator.writeTo(dao);
+        List<Rocket> mostLaunched = new RocketMiner(dao).mostLaunchedRockets(3);
+        assertEquals("rocket_0", mostLaunched.get(0).getName());
+    }
+
+    @Test
+    public void shouldRespectFailureRateAndLaunchDates() {
+        generator.setFailureRate(0.25);
+        generator.setLaunchDates(LocalDate.of(2000, 1, 1), LocalDate.of(2009, 12, 31));
+        generator.setPriceSpread(0);
+        int[] failed = new int[1];
+        generator.generate(p -> { }, r -> { }, launch -> {
+            assertEquals(2000, launch.getLaunchDate().getYear() / 10 * 10);
+            assertEquals(BigDecimal.valueOf(60_000_000), launch.getPrice());
+            if (launch.getLaunchOutcome() == Launch.LaunchOutcome.FAILED) {
+                failed[0]++;
+            }
+        });
+        assertEquals(0.25, failed[0] / 20000.0, 0.02);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenFailureRateIsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> generator.setFailureRate(1.5));
+    }
+}
@@ -0,0 +1,97 @@
+package rockets.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.mining.LeaderboardDAO;
+import rockets.mining.RocketMiner;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InstrumentedDAOUnitTest {
+    private Metrics metrics;
+    private InstrumentedDAO dao;
+    private Rocket rocket;
+
+    @BeforeEach
+    public void setUp() {
+        metrics = new Metrics();
+        dao = new InstrumentedDAO(new InMemoryDAO(), metrics);
+        rocket = new Rocket("F9", "USA", new LaunchServiceProvider("SpaceX", 2002, "USA"));
+        for (int i = 0; i < 3; i++) {
+            Launch launch = new Launch();
+            launch.setLaunchVehicle(rocket);
+            launch.setLaunchDate(LocalDate.of(2017, 1, 1 + i));
+            dao.createOrUpdate(launch);
+        }
+    }
+
+    @Test
+    public void shouldRecordEachOperationPerEntityClass() {
+        dao.load(Rocket.class, rocket.getId());
+        dao.load(Rocket.class, -1L);
+        dao.loadAll(Launch.class);
+
+        assertEquals(3, metrics.operation("dao.createOrUpdate", Launch.class).getCalls());
+        assertEquals(2, metrics.operation("dao.load", Rocket.class).getCalls());
+        assertEquals(1, metrics.operation("dao.load", Rocket.class).getRows());
+        assertEquals(3, metrics.operation("dao.loadAll", Launch.class).getRows());
+    }
+
+    @Test
+    public void shouldNotCountCallerTimeInStreams() {
+        try (Stream<Launch> launches = dao.stream(Launch.class)) {
+            launches.forEach(launch -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        OperationMetrics stream = metrics.operation("dao.stream", Launch.class);
+        assertEquals(1, stream.getCalls());
+        assertEquals(3, stream.getRows());
+        assertTrue(stream.getLatencies().getMax() < TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void shouldRecordFailuresAsErrors() {
+        DAO failing = mock(DAO.class);
+        doThrow(new IllegalArgumentException("Entity does not exist in the Database")).when(failing).delete(any());
+        InstrumentedDAO instrumented = new InstrumentedDAO(failing, metrics);
+        assertThrows(IllegalArgumentException.class, () -> instrumented.delete(rocket));
+        assertEquals(1, metrics.operation("dao.delete", Rocket.class).getErrors());
+    }
+
+    @Test
+    public void shouldRecordMinerQueriesAndTheLaunchQueriesTheyRun() {
+        RocketMiner scanning = new RocketMiner(dao);
+        scanning.setMetrics(metrics);
+        assertEquals(3, scanning.mostRecentLaunches(5).size());
+        assertEquals(1, metrics.operation("miner.mostRecentLaunches").getCalls());
+        assertEquals(3, metrics.operation("miner.mostRecentLaunches").getRows());
+        assertEquals(1, metrics.operation("dao.stream", Launch.class).getCalls());
+
+        RocketMiner querying = new RocketMiner(new InstrumentedDAO(new LeaderboardDAO(dao), metrics));
+        querying.setMetrics(metrics);
+        querying.mostLaunchedRockets(1);
+        assertEquals(1, metrics.operation("queries.mostLaunchedRockets").getCalls());
+        assertEquals(1, metrics.operation("miner.mostLaunchedRockets").getCalls());
+
+        querying.highestRevenueLaunchServiceProviders(1, 2017);
+        querying.highestRevenueLaunchServiceProviders(1, 2015, 2017);
+        assertEquals(1, metrics.operation("miner.highestRevenueLaunchServiceProviders").getCalls());
+        assertEquals(1, metrics.operation("miner.highestRevenueLaunchServiceProvidersOverYears").getCalls());
+        assertEquals(1, metrics.operation("queries.highestRevenueOverYears").getCalls());
+    }
+}
@@ -0,0 +1,122 @@
+package rockets.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.model.Rocket;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsUnitTest {
+    private Metrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        metrics = new Metrics();
+    }
+
+    @Test
+    public void shouldEstimateQuantilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        Random random = new Random(5171);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(8 + 4 * random.nextDouble());
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double quantile : new double[]{0.5, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            assertEquals(exact, histogram.valueAt(quantile), exact * 0.04);
+        }
+        assertEquals(values[values.length - 1], histogram.valueAt(1.0));
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(100_000, histogram.getCount());
+    }
+
+    @Test
+    public void shouldKeepSmallValuesExactAndBucketsContiguous() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(-5);
+        assertEquals(0, histogram.valueAt(0.5));
+        assertEquals(3, histogram.valueAt(1.0));
+        for (long value = 0; value < 1 << 16; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.highestValueOf(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.highestValueOf(bucket - 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+        assertEquals(0, new LatencyHistogram().valueAt(0.99));
+    }
+
+    @Test
+    public void shouldRecordCallsRowsAndErrorsPerOperationAndClass() {
+        metrics.time("dao.loadAll", Rocket.class, () -> Arrays.asList(1, 2, 3));
+        metrics.time("dao.loadAll", Rocket.class, () -> null);
+        assertThrows(IllegalStateException.class, () -> metrics.time("miner.mostLaunchedRockets", () -> {
+            throw new IllegalStateException();
+        }));
+
+        OperationMetrics loadAll = metrics.operation("dao.loadAll", Rocket.class);
+        assertEquals("dao.loadAll[Rocket]", loadAll.getName());
+        assertEquals(2, loadAll.getCalls());
+        assertEquals(3, loadAll.getRows());
+        assertEquals(0, loadAll.getErrors());
+        OperationMetrics miner = metrics.operation("miner.mostLaunchedRockets");
+        assertEquals(1, miner.getErrors());
+        assertEquals("", miner.getEntity());
+
+        List<OperationMetrics> published = new ArrayList<>();
+        metrics.publish(published::addAll);
+        assertEquals(Arrays.asList(loadAll, miner), published);
+    }
+
+    @Test
+    public void shouldExposeOperationsAsMXBeans() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        metrics.time("dao.load", Rocket.class, () -> "rocket");
+        metrics.registerMBeans(server);
+        metrics.time("miner.dominantCountry", () -> "USA");
+
+        ObjectName load = Metrics.objectName(metrics.operation("dao.load", Rocket.class));
+        assertEquals(1L, server.getAttribute(load, "Calls"));
+        assertEquals("Rocket", server.getAttribute(load, "Entity"));
+        ObjectName miner = new ObjectName("rockets:type=Operation,name=" + ObjectName.quote("miner.dominantCountry"));
+        assertTrue(server.isRegistered(miner));
+        assertTrue((Double) server.getAttribute(miner, "P999Micros") >= 0);
+
+        metrics.unregisterMBeans();
+        assertFalse(server.isRegistered(load));
+        assertFalse(server.isRegistered(miner));
+    }
+
+    @Test
+    public void shouldExposeGaugesAsMXBeans() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        long[] mapped = {3};
+        Gauge gauge = metrics.gauge("neo4j.mappedEntities", () -> mapped[0]);
+        metrics.registerMBeans(server);
+
+        ObjectName name = Metrics.objectName(gauge);
+        assertEquals(new ObjectName("rockets:type=Gauge,name=" + ObjectName.quote("neo4j.mappedEntities")), name);
+        assertEquals(3L, server.getAttribute(name, "Value"));
+        mapped[0] = 5;
+        assertEquals(5L, server.getAttribute(name, "Value"));
+
+        metrics.gauge("neo4j.mappedEntities", () -> 7);
+        assertEquals(7L, server.getAttribute(name, "Value"));
+        assertEquals(1, metrics.getGauges().size());
+        assertThrows(NullPointerException.class, () -> metrics.gauge("queue.size", null));
+
+        metrics.unregisterMBeans();
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,153 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.dataset.LaunchDatasetGenerator;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LeaderboardDAOUnitTest {
+    private DAO delegate;
+    private LeaderboardDAO dao;
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider esa;
+    private Rocket falcon;
+    private Rocket ariane;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = new InMemoryDAO();
+        dao = new LeaderboardDAO(delegate);
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        esa = new LaunchServiceProvider("ESA", 1975, "Europe");
+        falcon = new Rocket("F9", "USA", spacex);
+        ariane = new Rocket("Ariane5", "Europe", esa);
+    }
+
+    private Launch launch(Rocket vehicle, LocalDate date, String orbit, long price, Launch.LaunchOutcome outcome) {
+        Launch launch = new Launch();
+        launch.setLaunchVehicle(vehicle);
+        launch.setLaunchServiceProvider(vehicle.getManufacturer());
+        launch.setLaunchDate(date);
+        launch.setOrbit(orbit);
+        launch.setPrice(BigDecimal.valueOf(price));
+        launch.setLaunchOutcome(outcome);
+        return launch;
+    }
+
+    @Test
+    public void shouldAnswerLikeAScanOverTheSameLaunches() {
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 20000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+        generator.writeTo(dao);
+
+        LaunchAggregates scan = new LaunchAggregates(delegate.loadAll(Launch.class));
+        RocketMiner miner = new RocketMiner(dao);
+        assertEquals(scan.mostLaunchedRockets(5), miner.mostLaunchedRockets(5));
+        assertEquals(scan.mostReliableLaunchServiceProviders(5), miner.mostReliableLaunchServiceProviders(5));
+        assertEquals(scan.mostUnreliableLaunchServiceProviders(5), miner.mostUnreliableLaunchServiceProviders(5));
+        assertEquals(scan.highestRevenueLaunchServiceProviders(5, 2000), miner.highestRevenueLaunchServiceProviders(5, 2000));
+        assertEquals(scan.mostRecentLaunches(10), miner.mostRecentLaunches(10));
+        assertEquals(scan.mostExpensiveLaunches(10), miner.mostExpensiveLaunches(10));
+        assertEquals(scan.dominantCountry("LEO"), miner.dominantCountry("LEO"));
+        assertEquals(20000, dao.getLeaderboards().size());
+    }
+
+    @Test
+    public void shouldAnswerRevenueOverYearsFromMaintainedCube() {
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 5000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+        DAO spied = spy(delegate);
+        LeaderboardDAO leaderboardDao = new LeaderboardDAO(spied);
+        generator.writeTo(leaderboardDao);
+
+        RevenueCube scan = new RevenueCube(delegate.loadAll(Launch.class));
+        RocketMiner miner = new RocketMiner(leaderboardDao);
+        reset(spied);
+        for (int year = 1990; year < 2010; year++) {
+            assertEquals(scan.highestRevenueLaunchServiceProviders(5, year, 2010),
+                    miner.highestRevenueLaunchServiceProviders(5, year, 2010));
+        }
+        verify(spied, never()).stream(Launch.class);
+        verify(spied, never()).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldLoadTopLaunchesBackById() {
+        DAO spied = spy(delegate);
+        LeaderboardDAO leaderboardDao = new LeaderboardDAO(spied);
+        Launch cheap = leaderboardDao.createOrUpdate(launch(falcon, LocalDate.of(2017, 1, 1), "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL));
+        Launch expensive = leaderboardDao.createOrUpdate(launch(ariane, LocalDate.of(2016, 1, 1), "GTO", 250, Launch.LaunchOutcome.SUCCESSFUL));
+        Launch unpriced = launch(ariane, LocalDate.of(2018, 1, 1), "GTO", 0, Launch.LaunchOutcome.SUCCESSFUL);
+        unpriced.setPrice(null);
+        unpriced = leaderboardDao.createOrUpdate(unpriced);
+
+        assertEquals(Arrays.asList(expensive, cheap, unpriced), leaderboardDao.getLeaderboards().mostExpensiveLaunches(5));
+        assertEquals(Arrays.asList(unpriced, cheap), leaderboardDao.getLeaderboards().mostRecentLaunches(2));
+        verify(spied, times(2)).load(Launch.class, cheap.getId());
+        verify(spied, times(2)).load(Launch.class, unpriced.getId());
+        verify(spied, times(1)).load(Launch.class, expensive.getId());
+    }
+
+    @Test
+    public void shouldStartFromLaunchesAlreadyInDelegate() {
+        delegate.createOrUpdate(launch(falcon, LocalDate.of(2017, 1, 1), "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL));
+        LeaderboardDAO another = new LeaderboardDAO(delegate);
+        assertEquals(Collections.singletonList(falcon), new RocketMiner(another).mostLaunchedRockets(5));
+    }
+
+    @Test
+    public void shouldReplaceContributionOfUpdatedLaunch() {
+        Launch launch = dao.createOrUpdate(launch(falcon, LocalDate.of(2017, 1, 1), "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL));
+        dao.createOrUpdate(launch(ariane, LocalDate.of(2017, 2, 1), "GTO", 50, Launch.LaunchOutcome.FAILED));
+        LaunchLeaderboards leaderboards = dao.getLeaderboards();
+        assertEquals(Arrays.asList(spacex), leaderboards.mostReliableLaunchServiceProviders(5));
+        assertEquals(Arrays.asList(spacex, esa), leaderboards.highestRevenueLaunchServiceProviders(5, 2017));
+
+        launch.setLaunchOutcome(Launch.LaunchOutcome.FAILED);
+        launch.setPrice(BigDecimal.valueOf(10));
+        launch.setOrbit("GTO");
+        dao.createOrUpdate(launch);
+
+        assertTrue(leaderboards.mostReliableLaunchServiceProviders(5).isEmpty());
+        assertEquals(Arrays.asList(esa, spacex), leaderboards.highestRevenueLaunchServiceProviders(5, 2017));
+        assertEquals("", leaderboards.dominantCountry("LEO"));
+        assertEquals(2, leaderboards.size());
+    }
+
+    @Test
+    public void shouldTakeBackContributionOfDeletedLaunch() {
+        Launch launch = dao.createOrUpdate(launch(falcon, LocalDate.of(2017, 1, 1), "LEO", 100, Launch.LaunchOutcome.SUCCESSFUL));
+        dao.createOrUpdateAll(Arrays.asList(
+                launch(ariane, LocalDate.of(2016, 1, 1), "LEO", 50, Launch.LaunchOutcome.SUCCESSFUL),
+                launch(ariane, LocalDate.of(2015, 1, 1), "LEO", 50, Launch.LaunchOutcome.SUCCESSFUL)));
+        assertEquals(Arrays.asList(launch), dao.getLeaderboards().mostRecentLaunches(1));
+
+        dao.delete(launch);
+
+        LaunchLeaderboards leaderboards = dao.getLeaderboards();
+        assertEquals(Arrays.asList(ariane), leaderboards.mostLaunchedRockets(5));
+        assertEquals("Europe", leaderboards.dominantCountry("LEO"));
+        assertTrue(leaderboards.highestRevenueLaunchServiceProviders(5, 2017).isEmpty());
+        assertNotEquals(launch, leaderboards.mostExpensiveLaunches(1).get(0));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenKIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> dao.getLeaderboards().mostRecentLaunches(-1));
+        assertThrows(IllegalArgumentException.class, () -> dao.getLeaderboards().mostLaunchedRockets(-1));
+    }
+}
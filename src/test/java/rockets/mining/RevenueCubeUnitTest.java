@@ -0,0 +1,106 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.index.DateIndexedDAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.dataset.LaunchDatasetGenerator;
+import rockets.model.Launch;
+import rockets.model.LaunchServiceProvider;
+import rockets.model.Rocket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevenueCubeUnitTest {
+    private LaunchServiceProvider spacex;
+    private LaunchServiceProvider esa;
+    private RevenueCube cube;
+
+    @BeforeEach
+    public void setUp() {
+        spacex = new LaunchServiceProvider("SpaceX", 2002, "USA");
+        esa = new LaunchServiceProvider("ESA", 1975, "Europe");
+        cube = new RevenueCube();
+    }
+
+    private Launch launch(LaunchServiceProvider provider, LocalDate date, String orbit, long price) {
+        Launch launch = new Launch();
+        launch.setLaunchVehicle(new Rocket("R", provider.getCountry(), provider));
+        launch.setLaunchServiceProvider(provider);
+        launch.setLaunchDate(date);
+        launch.setOrbit(orbit);
+        launch.setPrice(BigDecimal.valueOf(price));
+        return launch;
+    }
+
+    @Test
+    public void shouldRankProvidersPerYearMonthAndOrbit() {
+        cube.add(launch(spacex, LocalDate.of(2017, 1, 10), "LEO", 100));
+        cube.add(launch(spacex, LocalDate.of(2017, 1, 20), "LEO", 100));
+        cube.add(launch(esa, LocalDate.of(2017, 2, 1), "GTO", 150));
+        cube.add(launch(esa, LocalDate.of(2018, 1, 1), "LEO", 500));
+
+        assertEquals(Arrays.asList(spacex, esa), cube.highestRevenueLaunchServiceProviders(5, 2017));
+        assertEquals(Arrays.asList(esa), cube.highestRevenueLaunchServiceProviders(5, 2018));
+        assertEquals(Arrays.asList(esa, spacex), cube.highestRevenueLaunchServiceProviders(5, 2017, 2018));
+        assertEquals(Arrays.asList(spacex), cube.highestRevenueLaunchServiceProviders(5, YearMonth.of(2017, 1)));
+        assertEquals(Arrays.asList(esa), cube.highestRevenueLaunchServiceProviders(5, 2017, "GTO"));
+        assertEquals(BigDecimal.valueOf(200), cube.revenue(spacex, 2017));
+        assertEquals(BigDecimal.ZERO, cube.revenue(spacex, 2018));
+        assertTrue(cube.highestRevenueLaunchServiceProviders(5, 2019).isEmpty());
+    }
+
+    @Test
+    public void shouldTakeBackSubtractedLaunches() {
+        Launch launch = launch(spacex, LocalDate.of(2017, 1, 10), "LEO", 100);
+        cube.add(launch);
+        cube.add(launch(esa, LocalDate.of(2017, 2, 1), "GTO", 50));
+        cube.subtract(launch);
+        assertEquals(Arrays.asList(esa), cube.highestRevenueLaunchServiceProviders(5, 2017));
+        assertTrue(cube.highestRevenueLaunchServiceProviders(5, 2017, "LEO").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> cube.subtract(launch));
+    }
+
+    @Test
+    public void shouldRankLikeAScanForEveryYearAndRange() {
+        DAO dao = new InMemoryDAO();
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 20000);
+        generator.setProviders(10);
+        generator.setRockets(40);
+        generator.writeTo(dao);
+        Collection<Launch> launches = dao.loadAll(Launch.class);
+        LaunchAggregates scan = new LaunchAggregates(launches);
+        RevenueCube cube = new RocketMiner(dao).revenueCube();
+
+        for (int year = 1957; year <= 2019; year++) {
+            assertEquals(scan.highestRevenueLaunchServiceProviders(5, year), cube.highestRevenueLaunchServiceProviders(5, year));
+        }
+
+        Map<LaunchServiceProvider, BigDecimal> revenue = new HashMap<>();
+        launches.stream().filter(l -> l.getLaunchDate().getYear() >= 1990 && l.getLaunchDate().getYear() <= 2009)
+                .forEach(l -> revenue.merge(l.getLaunchServiceProvider(), l.getPrice(), BigDecimal::add));
+        List<LaunchServiceProvider> expected = revenue.entrySet().stream()
+                .sorted(Map.Entry.<LaunchServiceProvider, BigDecimal>comparingByValue(Comparator.reverseOrder()))
+                .limit(5).map(Map.Entry::getKey).collect(Collectors.toList());
+        assertEquals(expected, cube.highestRevenueLaunchServiceProviders(5, 1990, 2009));
+        assertEquals(expected, new RocketMiner(new DateIndexedDAO(dao)).highestRevenueLaunchServiceProviders(5, 1990, 2009));
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenRangeIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> cube.highestRevenueLaunchServiceProviders(5, 2018, 2017));
+        assertThrows(IllegalArgumentException.class, () -> cube.highestRevenueLaunchServiceProviders(-1, 2017));
+    }
+}
@@ -10,7 +10,11 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rockets.dataaccess.DAO;
+import rockets.dataaccess.LaunchQueries;
+import rockets.dataaccess.index.LaunchDateIndex;
+import rockets.dataaccess.memory.InMemoryDAO;
 import rockets.dataaccess.neo4j.Neo4jDAO;
+import rockets.dataset.LaunchDatasetGenerator;
 import rockets.model.Launch;
 import rockets.model.LaunchServiceProvider;
 import rockets.model.Rocket;
@@ -53,6 +57,7 @@ public class RocketMinerUnitTest {
     @BeforeEach
     public void setUp() {
         dao = mock(Neo4jDAO.class);
+        when(dao.stream(Launch.class)).thenAnswer(invocation -> dao.loadAll(Launch.class).stream());
         miner = new RocketMiner(dao);
         rockets = Lists.newArrayList();
 
@@ -103,7 +108,8 @@ public class RocketMinerUnitTest {
             l.setLaunchVehicle(rockets.get(rocketIndex[i]));
             l.setLaunchServiceProvider(lsps.get(i));
             l.setLaunchOutcome(launchOutcomes[i]);
-            l.setLaunchSite("VAFB");
+            // a pad per launch, so no two launches share a natural key
+            l.setLaunchSite("VAFB-" + i);
             l.setOrbit("LEO");
             l.setPrice(price[i]);
             l.setLaunchDate(years[i]);
@@ -359,6 +365,98 @@ public class RocketMinerUnitTest {
         assertEquals(unreliablelsps.subList(0,k),launchServiceProviders);
     }
 
+    @Test
+    public void shouldAnswerAllQueriesFromOneLoad() {
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        LaunchAggregates aggregates = miner.aggregate();
+        assertEquals(launches.size(), aggregates.size());
+        assertEquals(miner.mostLaunchedRockets(3), aggregates.mostLaunchedRockets(3));
+        assertEquals(miner.mostReliableLaunchServiceProviders(2), aggregates.mostReliableLaunchServiceProviders(2));
+        assertEquals(miner.mostUnreliableLaunchServiceProviders(2), aggregates.mostUnreliableLaunchServiceProviders(2));
+        assertEquals(miner.highestRevenueLaunchServiceProviders(3, 2017), aggregates.highestRevenueLaunchServiceProviders(3, 2017));
+        assertEquals(miner.dominantCountry("LEO"), aggregates.dominantCountry("LEO"));
+        verify(dao, times(6)).loadAll(Launch.class);
+
+        List<Object> answers = miner.inOnePass(() -> Arrays.asList(
+                miner.mostLaunchedRockets(3), miner.mostReliableLaunchServiceProviders(2),
+                miner.mostUnreliableLaunchServiceProviders(2), miner.highestRevenueLaunchServiceProviders(3, 2017),
+                miner.dominantCountry("LEO"), miner.mostRecentLaunches(3), miner.mostExpensiveLaunches(3)));
+        assertEquals(Arrays.asList(
+                aggregates.mostLaunchedRockets(3), aggregates.mostReliableLaunchServiceProviders(2),
+                aggregates.mostUnreliableLaunchServiceProviders(2), aggregates.highestRevenueLaunchServiceProviders(3, 2017),
+                aggregates.dominantCountry("LEO"), aggregates.mostRecentLaunches(3), aggregates.mostExpensiveLaunches(3)), answers);
+        verify(dao, times(7)).loadAll(Launch.class);
+
+        miner.dominantCountry("LEO");
+        verify(dao, times(8)).loadAll(Launch.class);
+    }
+
+    @Test
+    public void shouldReturnAllGroupsWhenFewerThanK() {
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals(5, miner.mostLaunchedRockets(20).size());
+        assertEquals(3, miner.mostReliableLaunchServiceProviders(20).size());
+        assertEquals(1, miner.highestRevenueLaunchServiceProviders(20, 2019).size());
+        assertEquals(launches.size(), miner.mostRecentLaunches(20).size());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenAskingForMoreLaunchesThanKept() {
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        LaunchAggregates aggregates = miner.aggregate(2);
+        assertEquals(miner.mostRecentLaunches(2), aggregates.mostRecentLaunches(2));
+        assertEquals(miner.mostExpensiveLaunches(1), aggregates.mostExpensiveLaunches(1));
+        assertThrows(IllegalArgumentException.class, () -> aggregates.mostRecentLaunches(3));
+    }
+
+    @Test
+    public void shouldReturnEmptyCountryForUnknownOrbit() {
+        when(dao.loadAll(Launch.class)).thenReturn(launches);
+        assertEquals("", miner.dominantCountry("GTO"));
+    }
+
+    @Test
+    public void shouldAnswerIdenticallyInParallelMode() {
+        DAO inMemory = new InMemoryDAO();
+        LaunchDatasetGenerator generator = new LaunchDatasetGenerator(5171, 5000);
+        generator.setProviders(300);
+        generator.setRockets(3000);
+        generator.setSkew(0);
+        generator.setPriceSpread(0);
+        generator.writeTo(inMemory);
+
+        RocketMiner sequential = new RocketMiner(inMemory);
+        RocketMiner parallel = new RocketMiner(inMemory, 4);
+        parallel.setChunkSize(97);
+        assertEquals(sequential.mostLaunchedRockets(50), parallel.mostLaunchedRockets(50));
+        assertEquals(sequential.mostReliableLaunchServiceProviders(50), parallel.mostReliableLaunchServiceProviders(50));
+        assertEquals(sequential.mostUnreliableLaunchServiceProviders(50), parallel.mostUnreliableLaunchServiceProviders(50));
+        assertEquals(sequential.highestRevenueLaunchServiceProviders(50, 2000), parallel.highestRevenueLaunchServiceProviders(50, 2000));
+        assertEquals(sequential.mostRecentLaunches(50), parallel.mostRecentLaunches(50));
+        assertEquals(sequential.mostExpensiveLaunches(50), parallel.mostExpensiveLaunches(50));
+        assertEquals(sequential.dominantCountry("LEO"), parallel.dominantCountry("LEO"));
+        assertEquals(sequential.aggregate().size(), parallel.aggregate().size());
+    }
+
+    @Test
+    public void shouldAnswerDateBoundedQueriesFromLaunchQueriesAheadOfDateIndex() {
+        LaunchQueries queries = mock(LaunchQueries.class);
+        LaunchDateIndex index = mock(LaunchDateIndex.class);
+        when(dao.launchQueries()).thenReturn(Optional.of(queries));
+        when(dao.launchDateIndex()).thenReturn(Optional.of(index));
+        when(queries.highestRevenueLaunchServiceProviders(2, 2017)).thenReturn(lsps.subList(0, 2));
+        when(queries.mostRecentLaunches(3)).thenReturn(launches.subList(0, 3));
+        assertEquals(lsps.subList(0, 2), miner.highestRevenueLaunchServiceProviders(2, 2017));
+        assertEquals(launches.subList(0, 3), miner.mostRecentLaunches(3));
+        verifyZeroInteractions(index);
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenParallelismIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new RocketMiner(dao, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RocketMiner(dao).setChunkSize(0));
+    }
+
 
     //INTEGRATION TESTING
 
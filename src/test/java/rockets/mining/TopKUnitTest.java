@@ -0,0 +1,66 @@
+package rockets.mining;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopKUnitTest {
+    private static final Comparator<int[]> BY_VALUE_DESC = (a, b) -> Integer.compare(b[0], a[0]);
+
+    // each element is {value, position}; positions let us check tie order
+    private List<int[]> elements(int size, int distinctValues) {
+        Random random = new Random(42);
+        return IntStream.range(0, size)
+                .mapToObj(i -> new int[]{random.nextInt(distinctValues), i})
+                .collect(Collectors.toList());
+    }
+
+    private List<int[]> sortAndLimit(List<int[]> elements, int k) {
+        return elements.stream().sorted(BY_VALUE_DESC).limit(k).collect(Collectors.toList());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 10, 100, 1000})
+    public void shouldMatchStableSortWithTies(int k) {
+        List<int[]> elements = elements(500, 20);
+        List<int[]> expected = sortAndLimit(elements, k);
+        assertArrayEquals(expected.toArray(), TopK.select(elements, k, BY_VALUE_DESC).toArray());
+        assertArrayEquals(expected.toArray(), TopK.select(elements.stream(), k, BY_VALUE_DESC).toArray());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 50})
+    public void shouldMatchStableSortOnParallelStreams(int k) {
+        List<int[]> elements = elements(10000, 7);
+        List<int[]> expected = sortAndLimit(elements, k);
+        List<int[]> selected = elements.parallelStream().collect(TopK.collector(k, BY_VALUE_DESC));
+        assertArrayEquals(expected.toArray(), selected.toArray());
+    }
+
+    @Test
+    public void shouldReturnAllElementsWhenFewerThanK() {
+        List<String> selected = TopK.select(Arrays.asList("b", "a", "c"), 10, Comparator.naturalOrder());
+        assertEquals(Arrays.asList("a", "b", "c"), selected);
+    }
+
+    @Test
+    public void shouldReturnEmptyListForEmptyInput() {
+        assertTrue(TopK.select(new ArrayList<String>(), 3, Comparator.naturalOrder()).isEmpty());
+    }
+
+    @Test
+    public void shouldThrowExceptionWhenKIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> TopK.select(Collections.singletonList("a"), -1, Comparator.naturalOrder()));
+    }
+}
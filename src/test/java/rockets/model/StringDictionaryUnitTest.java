@@ -0,0 +1,67 @@
+package rockets.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringDictionaryUnitTest {
+    private StringDictionary dictionary;
+
+    @BeforeEach
+    public void setUp() {
+        dictionary = new StringDictionary();
+    }
+
+    @Test
+    public void shouldEncodeStringsInOrderOfFirstAppearance() {
+        assertEquals(0, dictionary.encode("LEO"));
+        assertEquals(1, dictionary.encode("GTO"));
+        assertEquals(0, dictionary.encode(new String("LEO")));
+        assertEquals(2, dictionary.size());
+        assertEquals("GTO", dictionary.decode(1));
+        assertEquals(1, dictionary.codeOf("GTO"));
+        assertEquals(StringDictionary.NONE, dictionary.codeOf("SSO"));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    public void shouldInternToCanonicalInstance() {
+        String canonical = dictionary.intern(new String("LEO"));
+        String copy = new String("LEO");
+        assertNotSame(canonical, copy);
+        assertSame(canonical, dictionary.intern(copy));
+    }
+
+    @Test
+    public void shouldEncodeNullAsNone() {
+        assertEquals(StringDictionary.NONE, dictionary.encode(null));
+        assertNull(dictionary.decode(StringDictionary.NONE));
+        assertNull(dictionary.intern(null));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    public void shouldGiveSameCodesAcrossThreads() {
+        List<Integer> codes = IntStream.range(0, 10000).parallel()
+                .map(i -> dictionary.encode("site " + (i % 100)))
+                .boxed().collect(Collectors.toList());
+        assertEquals(100, dictionary.size());
+        for (int i = 0; i < codes.size(); i++) {
+            assertEquals("site " + (i % 100), dictionary.decode(codes.get(i)));
+        }
+    }
+
+    @Test
+    public void shouldInternAttributesOfEntities() {
+        Rocket rocket = new Rocket("F9", new String("USA"), new LaunchServiceProvider("SpaceX", 2002, new String("USA")));
+        assertSame(rocket.getCountry(), rocket.getManufacturer().getCountry());
+        Launch launch = new Launch();
+        launch.setOrbit(new String("LEO"));
+        assertSame(Dictionaries.ORBITS.intern("LEO"), launch.getOrbit());
+    }
+}
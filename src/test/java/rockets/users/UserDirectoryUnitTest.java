@@ -0,0 +1,186 @@
+package rockets.users;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rockets.dataaccess.DAO;
+import rockets.dataaccess.memory.InMemoryDAO;
+import rockets.model.Entity;
+import rockets.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserDirectoryUnitTest {
+    private DAO dao;
+    private UserDirectory directory;
+
+    @BeforeEach
+    public void setUp() {
+        dao = new SynchronizedDAO();
+        directory = new UserDirectory(dao);
+    }
+
+    private static User user(String email, String password) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword(password);
+        return user;
+    }
+
+    @Test
+    public void shouldFindAndAuthenticateRegisteredUsers() {
+        User ada = directory.register(user("ada@example.com", "Passw0rd!"));
+        assertNotNull(ada.getId());
+        assertSame(ada, directory.findByEmail("ada@example.com").get());
+        assertSame(ada, directory.authenticate("ada@example.com", " Passw0rd! ").get());
+        assertFalse(directory.authenticate("ada@example.com", "Passw0rd?").isPresent());
+        assertFalse(directory.authenticate("bob@example.com", "Passw0rd!").isPresent());
+        assertFalse(directory.authenticate(null, "Passw0rd!").isPresent());
+    }
+
+    @Test
+    public void shouldIndexUsersAlreadyInTheDAO() {
+        dao.createOrUpdate(user("ada@example.com", "Passw0rd!"));
+        assertFalse(directory.findByEmail("ada@example.com").isPresent());
+        directory.rebuild();
+        assertTrue(directory.findByEmail("ada@example.com").isPresent());
+        assertTrue(new UserDirectory(dao).authenticate("ada@example.com", "Passw0rd!").isPresent());
+    }
+
+    @Test
+    public void shouldRejectInvalidOrDuplicateRegistrations() {
+        directory.register(user("ada@example.com", "Passw0rd!"));
+        assertThrows(IllegalArgumentException.class, () -> directory.register(user("ada@example.com", "0therPass!")));
+        assertThrows(IllegalArgumentException.class, () -> directory.register(user("not-an-email", "Passw0rd!")));
+        assertThrows(IllegalArgumentException.class, () -> directory.register(user("bob@example.com", "password")));
+        assertThrows(NullPointerException.class, () -> directory.register(null));
+        assertEquals(1, directory.size());
+        assertEquals(1, dao.loadAll(User.class).size());
+    }
+
+    @Test
+    public void shouldNotOverwriteUsersSavedOutsideTheDirectory() {
+        User ada = dao.createOrUpdate(user("ada@example.com", "Passw0rd!"));
+        assertThrows(IllegalArgumentException.class, () -> directory.register(user("ada@example.com", "0therPass!")));
+        assertThrows(IllegalArgumentException.class, () -> directory.registerAll(Arrays.asList(
+                user("bob@example.com", "Passw0rd!"), user("ada@example.com", "0therPass!"))));
+        User bob = directory.register(user("bob@example.com", "Passw0rd!"));
+        bob.setEmail("ada@example.com");
+        assertThrows(IllegalArgumentException.class, () -> directory.update(bob));
+
+        assertEquals(2, dao.loadAll(User.class).size());
+        assertEquals("Passw0rd!", dao.load(User.class, ada.getId()).getPassword());
+        assertTrue(directory.authenticate("ada@example.com", "Passw0rd!").isPresent());
+        assertFalse(directory.authenticate("ada@example.com", "0therPass!").isPresent());
+    }
+
+    @Test
+    public void shouldRegisterAllOrNone() {
+        List<User> saved = directory.registerAll(Arrays.asList(
+                user("ada@example.com", "Passw0rd!"), user("bob@example.com", "Passw0rd!")));
+        assertEquals(2, saved.size());
+        assertEquals(2, directory.size());
+
+        assertThrows(IllegalArgumentException.class, () -> directory.registerAll(Arrays.asList(
+                user("cy@example.com", "Passw0rd!"), user("cy@example.com", "Passw0rd!"))));
+        assertThrows(IllegalArgumentException.class, () -> directory.registerAll(Arrays.asList(
+                user("dee@example.com", "Passw0rd!"), user("ada@example.com", "Passw0rd!"))));
+        assertThrows(IllegalArgumentException.class, () -> directory.registerAll(Arrays.asList(
+                user("eve@example.com", "Passw0rd!"), user("fay@example.com", "weak"))));
+        assertEquals(2, directory.size());
+        assertEquals(2, dao.loadAll(User.class).size());
+        assertTrue(directory.registerAll(Arrays.asList(user("dee@example.com", "Passw0rd!"))).get(0).getId() > 0);
+    }
+
+    @Test
+    public void shouldFollowUpdatesAndDeletions() {
+        User ada = directory.register(user("ada@example.com", "Passw0rd!"));
+        directory.register(user("bob@example.com", "Passw0rd!"));
+        ada.setEmail("lovelace@example.com");
+        directory.update(ada);
+        assertFalse(directory.findByEmail("ada@example.com").isPresent());
+        assertSame(ada, directory.findByEmail("lovelace@example.com").get());
+
+        ada.setEmail("bob@example.com");
+        assertThrows(IllegalArgumentException.class, () -> directory.update(ada));
+        assertThrows(IllegalArgumentException.class, () -> directory.update(user("cy@example.com", "Passw0rd!")));
+
+        directory.delete(ada);
+        assertFalse(directory.findByEmail("lovelace@example.com").isPresent());
+        assertFalse(directory.authenticate("lovelace@example.com", "Passw0rd!").isPresent());
+        assertEquals(1, directory.size());
+    }
+
+    @Test
+    public void shouldRegisterEachEmailOnceUnderConcurrency() throws Exception {
+        int threads = 8;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int registered = 0;
+                    for (int i = 0; i < 50; i++) {
+                        try {
+                            directory.register(user("user" + i + "@example.com", "Passw0rd!"));
+                            registered++;
+                        } catch (IllegalArgumentException e) {
+                            // another thread registered it first
+                        }
+                    }
+                    return registered;
+                }));
+            }
+            int registered = 0;
+            for (Future<Integer> result : results) {
+                registered += result.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(50, registered);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(50, dao.loadAll(User.class).size());
+        assertEquals(50, directory.size());
+    }
+
+    /**
+     * An in-memory DAO safe to share between threads.
+     */
+    private static class SynchronizedDAO extends InMemoryDAO {
+        @Override
+        public synchronized <T extends Entity> T load(Class<T> clazz, Long id) {
+            return super.load(clazz, id);
+        }
+
+        @Override
+        public synchronized <T extends Entity> T createOrUpdate(T entity) {
+            return super.createOrUpdate(entity);
+        }
+
+        @Override
+        public synchronized <T extends Entity> List<T> createOrUpdateAll(Collection<T> entities) {
+            return super.createOrUpdateAll(entities);
+        }
+
+        @Override
+        public synchronized <T extends Entity> Collection<T> loadAll(Class<T> clazz) {
+            return new ArrayList<>(super.loadAll(clazz));
+        }
+
+        @Override
+        public synchronized <T extends Entity> void delete(T entity) {
+            super.delete(entity);
+        }
+    }
+}